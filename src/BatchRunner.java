@@ -0,0 +1,299 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs one solver over every graph in a list such as data/graphs.dat, checking each answer against the known
+ * clique size, and writes the results as CSV and JSON.
+ * <p>
+ * Graphs with fewer than --large nodes are run several at a time, one solver thread each, so the many quick
+ * instances do not each wait for the whole machine. Larger graphs then run one at a time with every thread.
+ * Wall time is measured for every run. CPU time and peak heap belong to the whole process, so they are only
+ * recorded for runs that had the machine to themselves. The concurrent runs share one measurement for their
+ * whole phase, which goes in the phase columns of each of their CSV rows and once in the JSON. A solver's
+ * threads come from its own pool rather than the thread that called it, so per-thread CPU time would miss them.
+ * <p>
+ * Usage: BatchRunner [--solver name] [--graphs file] [--time seconds] [--repeats n] [--large nodes]
+ * [--csv file] [--json file]
+ */
+public class BatchRunner {
+    private static final String NEWLINE = System.lineSeparator();
+
+    private String solverName = "findLargestCliqueColoring";
+    private String graphList = "data/graphs.dat";
+    private Duration timeLimit = Duration.ofMinutes(10);
+    private int repeats = 1;
+    private int largeNodes = 400;
+    private String csvName = "results.csv";
+    private String jsonName = "results.json";
+    // Totals for the concurrent phase, shared by all of its runs
+    private double phaseWallSeconds = Double.NaN;
+    private double phaseCpuSeconds = Double.NaN;
+    private double phasePeakHeapMegabytes = Double.NaN;
+
+    /**
+     * One solve of one graph.
+     */
+    private static class Run {
+        String graph;
+        int repeat;
+        int known;
+        int nodes;
+        boolean exclusive;
+        int threads;
+        int found = -1;
+        boolean proven;
+        String status;
+        double wallSeconds;
+        double cpuSeconds = Double.NaN;
+        double peakHeapMegabytes = Double.NaN;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchRunner runner = new BatchRunner();
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length)
+                throw new IllegalArgumentException("Missing value for " + args[i] + "!");
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--solver" -> runner.solverName = value;
+                case "--graphs" -> runner.graphList = value;
+                case "--time" -> runner.timeLimit = Duration.ofMillis(Math.round(Double.parseDouble(value) * 1000));
+                case "--repeats" -> runner.repeats = Integer.parseInt(value);
+                case "--large" -> runner.largeNodes = Integer.parseInt(value);
+                case "--csv" -> runner.csvName = value;
+                case "--json" -> runner.jsonName = value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i] + "!");
+            }
+        }
+
+        List<Run> runs = runner.run();
+        runner.writeCsv(runs);
+        runner.writeJson(runs);
+    }
+
+    private List<Run> run() throws IOException, InterruptedException {
+        MaxCliqueSolver solver = SolverRegistry.get(solverName);
+        final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+        Map<String, Integer> graphs = new TreeMap<>();
+        try (Scanner file = new Scanner(new File(graphList))) {
+            while (file.hasNext()) {
+                String graphName = file.next();
+                int bestKnownClique = file.nextInt();
+                graphs.put(graphName, bestKnownClique);
+            }
+        }
+
+        Path directory = Path.of(graphList).toAbsolutePath().getParent();
+        List<Run> small = new ArrayList<>();
+        List<Run> large = new ArrayList<>();
+        Map<String, BitMatrix> loaded = new HashMap<>();
+        for (Map.Entry<String, Integer> graphEntry : graphs.entrySet()) {
+            BitMatrix graph;
+            try {
+                graph = GraphCache.load(directory.resolve(graphEntry.getKey()));
+            }
+            catch (IOException | IllegalArgumentException e) {
+                graph = null;
+            }
+            for (int repeat = 1; repeat <= repeats; ++repeat) {
+                Run run = new Run();
+                run.graph = graphEntry.getKey();
+                run.repeat = repeat;
+                run.known = graphEntry.getValue();
+                run.nodes = graph == null ? -1 : graph.nodes();
+                run.exclusive = graph == null || graph.nodes() >= largeNodes;
+                run.threads = run.exclusive ? PROCESSORS : 1;
+                if (graph == null)
+                    run.status = "unreadable";
+                (run.exclusive ? large : small).add(run);
+            }
+            // Loading is cheap next to solving, but holding every matrix at once is not for the big instances
+            if (graph != null && graph.nodes() < largeNodes)
+                loaded.put(graphEntry.getKey(), graph);
+        }
+
+        PrintStream out = System.out;
+        out.format("%-20s %6s %5s %5s %-10s %10s%n", "Graph File", "Repeat", "Known", "Found", "Status", "Time");
+
+        long cpuBefore = processCpuNanos();
+        resetPeakHeap();
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(PROCESSORS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Run run : small)
+                futures.add(executor.submit(() -> {
+                    solve(solver, loaded.get(run.graph), run);
+                    print(out, run);
+                    return null;
+                }));
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                }
+                catch (ExecutionException e) {
+                    throw new IllegalStateException("Batch run failed!", e.getCause());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        if (!small.isEmpty()) {
+            phaseWallSeconds = (System.nanoTime() - start) / 1e9;
+            phaseCpuSeconds = (processCpuNanos() - cpuBefore) / 1e9;
+            phasePeakHeapMegabytes = peakHeapMegabytes();
+            out.format("[%d concurrent runs: %.3f seconds, %.3f CPU seconds, %.1f MB peak heap]%n", small.size(),
+                    phaseWallSeconds, phaseCpuSeconds, phasePeakHeapMegabytes);
+        }
+
+        loaded.clear();
+        String current = null;
+        BitMatrix graph = null;
+        for (Run run : large) {
+            if (run.status != null) {
+                print(out, run);
+                continue;
+            }
+            if (!run.graph.equals(current)) {
+                graph = GraphCache.load(directory.resolve(run.graph));
+                current = run.graph;
+            }
+
+            cpuBefore = processCpuNanos();
+            resetPeakHeap();
+            solve(solver, graph, run);
+            run.cpuSeconds = (processCpuNanos() - cpuBefore) / 1e9;
+            run.peakHeapMegabytes = peakHeapMegabytes();
+            print(out, run);
+        }
+
+        List<Run> runs = new ArrayList<>(small);
+        runs.addAll(large);
+        runs.sort(Comparator.comparing((Run run) -> run.graph).thenComparingInt(run -> run.repeat));
+        return runs;
+    }
+
+    /**
+     * Records a solver that throws as an error rather than failing the batch.
+     */
+    private void solve(MaxCliqueSolver solver, BitMatrix graph, Run run) throws InterruptedException {
+        SolveOptions options = new SolveOptions().timeLimit(timeLimit).threads(run.threads);
+        long start = System.nanoTime();
+        SolveResult result;
+        try {
+            result = solver.solve(graph, options);
+        }
+        catch (ExecutionException | RuntimeException e) {
+            run.wallSeconds = (System.nanoTime() - start) / 1e9;
+            run.status = "error";
+            return;
+        }
+        run.wallSeconds = (System.nanoTime() - start) / 1e9;
+        run.found = result.clique().length;
+        run.proven = result.proven();
+
+        if (!graph.isClique(result.clique()))
+            run.status = "invalid";
+        else if (run.found > run.known)
+            run.status = "wrong";
+        else if (run.found < run.known)
+            run.status = "miss";
+        else
+            run.status = "ok";
+    }
+
+    private static synchronized void print(PrintStream out, Run run) {
+        out.format("%-20s %6d %5d %5d %-10s %.3f seconds%n", run.graph, run.repeat, run.known, run.found, run.status, run.wallSeconds);
+    }
+
+    private void writeCsv(List<Run> runs) throws IOException {
+        try (PrintWriter writer = new PrintWriter(csvName)) {
+            writer.print("graph,solver,repeat,nodes,known,found,status,proven,threads,exclusive,wall_seconds,cpu_seconds,peak_heap_mb,"
+                    + "phase_wall_seconds,phase_cpu_seconds,phase_peak_heap_mb" + NEWLINE);
+            for (Run run : runs) {
+                boolean concurrent = !run.exclusive;
+                writer.print(String.join(",", run.graph, solverName, String.valueOf(run.repeat), String.valueOf(run.nodes),
+                        String.valueOf(run.known), String.valueOf(run.found), run.status, String.valueOf(run.proven),
+                        String.valueOf(run.threads), String.valueOf(run.exclusive), number(run.wallSeconds),
+                        number(run.cpuSeconds), number(run.peakHeapMegabytes),
+                        number(concurrent ? phaseWallSeconds : Double.NaN), number(concurrent ? phaseCpuSeconds : Double.NaN),
+                        number(concurrent ? phasePeakHeapMegabytes : Double.NaN)) + NEWLINE);
+            }
+        }
+    }
+
+    private void writeJson(List<Run> runs) throws IOException {
+        try (PrintWriter writer = new PrintWriter(jsonName)) {
+            writer.print("{" + NEWLINE);
+            writer.print("  \"solver\": " + string(solverName) + "," + NEWLINE);
+            writer.print("  \"timeLimitSeconds\": " + number(timeLimit.toMillis() / 1000.0) + "," + NEWLINE);
+            writer.print("  \"repeats\": " + repeats + "," + NEWLINE);
+            writer.print("  \"processors\": " + Runtime.getRuntime().availableProcessors() + "," + NEWLINE);
+            writer.print("  \"concurrentPhase\": {\"runs\": " + runs.stream().filter(run -> !run.exclusive).count()
+                    + ", \"wallSeconds\": " + json(phaseWallSeconds) + ", \"cpuSeconds\": " + json(phaseCpuSeconds)
+                    + ", \"peakHeapMb\": " + json(phasePeakHeapMegabytes) + "}," + NEWLINE);
+            writer.print("  \"runs\": [");
+            for (int i = 0; i < runs.size(); ++i) {
+                Run run = runs.get(i);
+                writer.print((i == 0 ? "" : ",") + NEWLINE + "    {\"graph\": " + string(run.graph)
+                        + ", \"repeat\": " + run.repeat + ", \"nodes\": " + run.nodes
+                        + ", \"known\": " + run.known + ", \"found\": " + run.found
+                        + ", \"status\": " + string(run.status) + ", \"proven\": " + run.proven
+                        + ", \"threads\": " + run.threads + ", \"exclusive\": " + run.exclusive
+                        + ", \"wallSeconds\": " + json(run.wallSeconds) + ", \"cpuSeconds\": " + json(run.cpuSeconds)
+                        + ", \"peakHeapMb\": " + json(run.peakHeapMegabytes) + "}");
+            }
+            writer.print(NEWLINE + "  ]" + NEWLINE + "}" + NEWLINE);
+        }
+    }
+
+    /**
+     * @return value with three decimals, or empty if it was not measured
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String json(double value) {
+        return Double.isNaN(value) ? "null" : number(value);
+    }
+
+    private static String string(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean system)
+            return system.getProcessCpuTime();
+        return -1;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+    }
+
+    /**
+     * Sum of the heap pools' peaks since the last reset. The pools peak at different moments, so this can
+     * overstate the true peak a little, but never understates it.
+     */
+    private static double peakHeapMegabytes() {
+        long bytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                bytes += pool.getPeakUsage().getUsed();
+        return bytes / (1024.0 * 1024.0);
+    }
+}
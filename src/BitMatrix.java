@@ -0,0 +1,238 @@
+import java.util.Arrays;
+
+/**
+ * Adjacency matrix packed into a single contiguous long[], one bit per pair.
+ * Row i occupies words [i * stride, (i + 1) * stride), so 64 nodes are handled per word.
+ * The set operations work on caller-supplied word buffers of stride words starting at an offset,
+ * and none of them allocate.
+ */
+public class BitMatrix {
+    private final int nodes;
+    private final int stride;
+    private final long[] words;
+    private final int[] degrees;
+    private long totalEdges;
+
+    public BitMatrix(int nodes) {
+        this.nodes = nodes;
+        stride = wordsFor(nodes);
+        words = new long[nodes * stride];
+        degrees = new int[nodes];
+    }
+
+    /**
+     * Wraps already-built rows, e.g. from a {@link GraphCache} file, without copying or validating them.
+     */
+    BitMatrix(int nodes, long[] words, int[] degrees, long totalEdges) {
+        this.nodes = nodes;
+        stride = wordsFor(nodes);
+        this.words = words;
+        this.degrees = degrees;
+        this.totalEdges = totalEdges;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    int[] degrees() {
+        return degrees;
+    }
+
+    public static int wordsFor(int nodes) {
+        return (nodes + 63) >>> 6;
+    }
+
+    public int nodes() {
+        return nodes;
+    }
+
+    public long edges() { return totalEdges; }
+
+    public int degree(int node) {
+        return degrees[node];
+    }
+
+    public int maxDegree() {
+        int max = 0;
+        for (int degree : degrees)
+            max = Math.max(max, degree);
+
+        return max;
+    }
+
+    /**
+     * Number of words in each row and in every set buffer used with this matrix.
+     */
+    public int stride() {
+        return stride;
+    }
+
+    public boolean hasEdge(int from, int to) {
+        return (words[from * stride + (to >>> 6)] & (1L << to)) != 0;
+    }
+
+    /**
+     * Adds an undirected edge.
+     * @return false if the edge was already present
+     */
+    public boolean addEdge(int from, int to) {
+        // In case edges are listed from both directions
+        if (hasEdge(from, to))
+            return false;
+
+        words[from * stride + (to >>> 6)] |= 1L << to;
+        words[to * stride + (from >>> 6)] |= 1L << from;
+        ++degrees[to];
+        ++degrees[from];
+        ++totalEdges;
+        return true;
+    }
+
+    /**
+     * Builds a copy of this graph in which node i is original node order[i].
+     * If order lists only some of the nodes, the result is the subgraph they induce.
+     */
+    public BitMatrix permute(int[] order) {
+        int[] position = new int[nodes];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < order.length; ++i)
+            position[order[i]] = i;
+
+        BitMatrix permuted = new BitMatrix(order.length);
+        for (int i = 0; i < order.length; ++i) {
+            int base = order[i] * stride;
+            for (int word = 0; word < stride; ++word)
+                for (long bits = words[base + word]; bits != 0; bits &= bits - 1) {
+                    int neighbor = position[(word << 6) + Long.numberOfTrailingZeros(bits)];
+                    if (neighbor > i)
+                        permuted.addEdge(i, neighbor);
+                }
+        }
+
+        return permuted;
+    }
+
+    /**
+     * Copies row into the set buffer starting at offset.
+     */
+    public void copyRow(int row, long[] set, int offset) {
+        System.arraycopy(words, row * stride, set, offset, stride);
+    }
+
+    /**
+     * Stores set AND row into result. The two buffers may be the same.
+     */
+    public void intersectRow(int row, long[] set, int setOffset, long[] result, int resultOffset) {
+        int base = row * stride;
+        for (int i = 0; i < stride; ++i)
+            result[resultOffset + i] = set[setOffset + i] & words[base + i];
+    }
+
+    /**
+     * Removes every neighbor of row from set, in place.
+     */
+    public void removeRow(int row, long[] set, int offset) {
+        int base = row * stride;
+        for (int i = 0; i < stride; ++i)
+            set[offset + i] &= ~words[base + i];
+    }
+
+    /**
+     * @return true if every node in set is adjacent to row, i.e. row could be added to a clique held in set
+     */
+    public boolean isSubsetOfRow(int row, long[] set, int offset) {
+        int base = row * stride;
+        for (int i = 0; i < stride; ++i)
+            if ((set[offset + i] & ~words[base + i]) != 0)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * @return size of set AND row, without materializing it
+     */
+    public int intersectionCount(int row, long[] set, int offset) {
+        int base = row * stride;
+        int count = 0;
+        for (int i = 0; i < stride; ++i)
+            count += Long.bitCount(set[offset + i] & words[base + i]);
+
+        return count;
+    }
+
+    public int popcount(long[] set, int offset) {
+        int count = 0;
+        for (int i = 0; i < stride; ++i)
+            count += Long.bitCount(set[offset + i]);
+
+        return count;
+    }
+
+    public boolean isEmpty(long[] set, int offset) {
+        for (int i = 0; i < stride; ++i)
+            if (set[offset + i] != 0)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * @return index of the first node at or after from in set, or -1 if there is none
+     */
+    public int nextSetBit(long[] set, int offset, int from) {
+        if (from >= nodes)
+            return -1;
+
+        int index = from >>> 6;
+        long word = set[offset + index] & (-1L << from);
+        while (word == 0) {
+            if (++index == stride)
+                return -1;
+            word = set[offset + index];
+        }
+
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    public static void set(long[] set, int offset, int node) {
+        set[offset + (node >>> 6)] |= 1L << node;
+    }
+
+    public static void clear(long[] set, int offset, int node) {
+        set[offset + (node >>> 6)] &= ~(1L << node);
+    }
+
+    /**
+     * Removes nodes 0 through node (inclusive) from set.
+     */
+    public static void clearThrough(long[] set, int offset, int node) {
+        int index = node >>> 6;
+        for (int i = 0; i < index; ++i)
+            set[offset + i] = 0;
+        set[offset + index] &= -2L << node;
+    }
+
+    public static boolean get(long[] set, int offset, int node) {
+        return (set[offset + (node >>> 6)] & (1L << node)) != 0;
+    }
+
+    public int[] setToArray(long[] set, int offset) {
+        int[] result = new int[popcount(set, offset)];
+        int index = 0;
+        for (int i = nextSetBit(set, offset, 0); i >= 0; i = nextSetBit(set, offset, i + 1))
+            result[index++] = i;
+
+        return result;
+    }
+
+    public boolean isClique(int[] nodes) {
+        for (int i = 0; i < nodes.length - 1; ++i)
+            for (int j = i + 1; j < nodes.length; ++j)
+                if (!hasEdge(nodes[i], nodes[j]))
+                    return false;
+
+        return true;
+    }
+}
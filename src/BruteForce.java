@@ -1,12 +1,18 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.ExecutionException;
 
 public class BruteForce {
-    public static void main(String[] args) throws FileNotFoundException, ExecutionException, InterruptedException {
+    /**
+     * Usage: BruteForce [solver [graph [seconds]]]
+     * The solver is any name in {@link SolverRegistry}, the graph a file in data/, and the optional
+     * time limit stops the search early with the best clique found so far.
+     */
+    public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
+        String solverName = args.length > 0 ? args[0] : "findLargestCliqueColoring";
+        MaxCliqueSolver solver = SolverRegistry.get(solverName);
 
-        GraphWithArrays graph;
         //String graphName = "johnson16-2-4.clq";
         //String graphName = "johnson8-4-4.clq";
         //String graphName = "hamming6-2.clq";
@@ -24,28 +30,28 @@ public class BruteForce {
         //String graphName = "p_hat700-2.clq";
         //String graphName = "p_hat700-3.clq";
         //String graphName = "san200_0.7_1.clq";
-        String graphName = "brock200_1.clq";
         //String graphName = "C125.9.clq";
+        String graphName = args.length > 1 ? args[1] : "brock200_1.clq";
 
+        BitMatrix graph = GraphCache.load(Path.of("data", graphName));
 
-        try (Scanner file = new Scanner(new File("data/" + graphName))) {
-            graph = new GraphWithArrays(file);
-        }
-
-
+        SolveOptions options = new SolveOptions().progressInterval(Duration.ofSeconds(1)).listener((clique, elapsed) ->
+                System.out.format("[Improved to %d after %.3f seconds]%n", clique.length, elapsed / 1000000000.0));
+        if (args.length > 2)
+            options.timeLimit(Duration.ofMillis(Math.round(Double.parseDouble(args[2]) * 1000)));
 
         long start = System.nanoTime();
-        //int[] nodes = graph.findLargestClique();
-        //int[] nodes = graph.findLargestCliqueStack();
-        //int[] nodes = graph.findLargestCliqueStackThreaded();
-        //int[] nodes = graph.newFindLargestCliqueStackThreaded();
-        int[] nodes = graph.findLargestCliqueThreaded();
+        SolveResult result = solver.solve(graph, options);
+        int[] nodes = result.clique();
         //int[] nodes = {133, 17, 92, 177, 38, 19, 84, 134, 107, 89, 185, 91, 67, 141, 149, 72, 101, 135, 86, 93, 80};
         long end = System.nanoTime();
+        System.out.format("%s on %s%n", solverName, graphName);
         System.out.format("Clique size: %d %.3f seconds%n", nodes.length, (end - start) / 1000000000.0);
         if (graph.isClique(nodes))
             System.out.println("It's a clique!");
         else
             System.out.println("It's not a clique!");
+        if (!result.proven())
+            System.out.println("Stopped before proving it is the largest!");
     }
 }
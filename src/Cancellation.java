@@ -0,0 +1,15 @@
+/**
+ * Lets another thread stop a running solve. The solver notices within a few thousand search nodes and
+ * returns the best clique found so far, marked as not proven.
+ */
+public class Cancellation {
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Receives cliques as an enumeration finds them. Enumeration threads call it concurrently, so an
+ * implementation must be thread-safe.
+ */
+@FunctionalInterface
+public interface CliqueConsumer {
+    /**
+     * @param nodes the clique in nodes[0 .. size), in original ids, ascending; the array is reused for the
+     * next clique as soon as this returns, so copy whatever is kept
+     * @param size number of nodes in the clique
+     */
+    void clique(int[] nodes, int size);
+}
@@ -0,0 +1,208 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Remembers which cliques have been seen by a 64-bit fingerprint of each, kept in an open-addressing table of
+ * primitive longs, instead of holding on to every clique.
+ * <p>
+ * Two different cliques share a fingerprint with probability about n^2 / 2^65 after n cliques, so false
+ * "seen" answers are vanishingly rare; for the heuristic they would only mean skipping one clique. Turning on
+ * verification also keeps each clique beside its fingerprint and compares them on a match, which makes the
+ * answers exact but gives up the memory savings.
+ * <p>
+ * The table doubles as it fills until it would pass the memory cap. When the capped table fills, everything is
+ * forgotten and recording starts over: the cliques most likely to come up again are the recent ones the
+ * heuristic is still combining, so keeping the table fresh is worth more than keeping it old.
+ */
+public class CliqueFingerprints {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    // Grow (or, at the cap, clear) once this fraction of slots is full
+    private static final double MAX_LOAD = 0.5;
+
+    private final long maxCapacity;
+    private final boolean verify;
+    private long[] table;
+    private BitSet[] cliques;
+    private int size;
+    private int resets;
+
+    /**
+     * @param maxBytes memory cap for the fingerprint table
+     * @param verify whether to keep the cliques themselves and compare them when fingerprints match
+     */
+    public CliqueFingerprints(long maxBytes, boolean verify) {
+        // Largest power of two slots that fits the cap, at 8 bytes per slot
+        long capacity = Long.highestOneBit(Math.max(maxBytes / Long.BYTES, 1));
+        if (capacity < INITIAL_CAPACITY)
+            throw new IllegalArgumentException("Memory cap for clique fingerprints is too small!");
+        maxCapacity = Math.min(capacity, 1 << 30);
+        this.verify = verify;
+        table = new long[INITIAL_CAPACITY];
+        cliques = verify ? new BitSet[INITIAL_CAPACITY] : null;
+    }
+
+    /**
+     * @return a well-mixed 64-bit hash of the nodes in clique; never 0, which marks an empty slot
+     */
+    public static long fingerprint(BitSet clique) {
+        long hash = 0x243F6A8885A308D3L;
+        for (int node = clique.nextSetBit(0); node >= 0; node = clique.nextSetBit(node + 1))
+            hash = (hash ^ node) * 0x9E3779B97F4A7C15L;
+        hash = mix(hash ^ clique.cardinality());
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Same as {@link #fingerprint(BitSet)} for a clique packed into words longs of set starting at offset.
+     */
+    public static long fingerprint(long[] set, int offset, int words) {
+        long hash = 0x243F6A8885A308D3L;
+        int cardinality = 0;
+        for (int i = 0; i < words; ++i) {
+            long word = set[offset + i];
+            cardinality += Long.bitCount(word);
+            while (word != 0) {
+                hash = (hash ^ ((i << 6) + Long.numberOfTrailingZeros(word))) * 0x9E3779B97F4A7C15L;
+                word &= word - 1;
+            }
+        }
+        hash = mix(hash ^ cardinality);
+        return hash == 0 ? 1 : hash;
+    }
+
+    public boolean contains(BitSet clique) {
+        long fingerprint = fingerprint(clique);
+        int mask = table.length - 1;
+        for (int slot = (int) fingerprint & mask; table[slot] != 0; slot = (slot + 1) & mask)
+            if (table[slot] == fingerprint && (!verify || cliques[slot].equals(clique)))
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Same as {@link #contains(BitSet)} for a clique packed into words longs of set starting at offset.
+     */
+    public boolean contains(long[] set, int offset, int words) {
+        long fingerprint = fingerprint(set, offset, words);
+        int mask = table.length - 1;
+        for (int slot = (int) fingerprint & mask; table[slot] != 0; slot = (slot + 1) & mask)
+            if (table[slot] == fingerprint && (!verify || equal(cliques[slot], set, offset, words)))
+                return true;
+
+        return false;
+    }
+
+    /**
+     * @return true if clique was not already recorded
+     */
+    public boolean add(BitSet clique) {
+        return add(fingerprint(clique), clique);
+    }
+
+    /**
+     * Same as {@link #add(BitSet)} for a clique packed into words longs of set starting at offset.
+     * Allocates nothing unless verifying.
+     */
+    public boolean add(long[] set, int offset, int words) {
+        long fingerprint = fingerprint(set, offset, words);
+        if (!verify)
+            return add(fingerprint, null);
+        return add(fingerprint, BitSet.valueOf(Arrays.copyOfRange(set, offset, offset + words)));
+    }
+
+    private boolean add(long fingerprint, BitSet clique) {
+        int mask = table.length - 1;
+        int slot = (int) fingerprint & mask;
+        for (; table[slot] != 0; slot = (slot + 1) & mask)
+            if (table[slot] == fingerprint && (!verify || cliques[slot].equals(clique)))
+                return false;
+
+        if (size + 1 > table.length * MAX_LOAD) {
+            if (table.length < maxCapacity)
+                resize(table.length * 2);
+            else {
+                Arrays.fill(table, 0);
+                if (verify)
+                    Arrays.fill(cliques, null);
+                size = 0;
+                ++resets;
+            }
+            // The probe sequence changed, so find the slot again
+            mask = table.length - 1;
+            slot = (int) fingerprint & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+        }
+
+        table[slot] = fingerprint;
+        if (verify)
+            cliques[slot] = clique;
+        ++size;
+        return true;
+    }
+
+    /**
+     * @return cliques recorded since the last reset
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return how many times the table was full at the memory cap and started over
+     */
+    public int resets() {
+        return resets;
+    }
+
+    public long bytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    private static boolean equal(BitSet clique, long[] set, int offset, int words) {
+        int cardinality = 0;
+        for (int i = 0; i < words; ++i) {
+            long word = set[offset + i];
+            cardinality += Long.bitCount(word);
+            while (word != 0) {
+                if (!clique.get((i << 6) + Long.numberOfTrailingZeros(word)))
+                    return false;
+                word &= word - 1;
+            }
+        }
+
+        return cardinality == clique.cardinality();
+    }
+
+    private void resize(int capacity) {
+        long[] oldTable = table;
+        BitSet[] oldCliques = cliques;
+        table = new long[capacity];
+        cliques = verify ? new BitSet[capacity] : null;
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldTable.length; ++i) {
+            if (oldTable[i] == 0)
+                continue;
+            int slot = (int) oldTable[i] & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = oldTable[i];
+            if (verify)
+                cliques[slot] = oldCliques[i];
+        }
+    }
+
+    /**
+     * Murmur3's 64-bit finalizer. Slots come from a fingerprint's low bits, so every node has to reach them.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB93FE1A85A53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
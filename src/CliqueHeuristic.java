@@ -0,0 +1,289 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+/**
+ * The randomized heuristic behind {@link Main#buildCliquesByAscendingDegree(Graph)}, split into steps so that
+ * several copies can run side by side and trade cliques. Cliques are seeded greedily from the nodes sorted by
+ * degree, then grown by combining random pairs (biased toward the largest) and by windows of single-node
+ * extensions, until a long run of windows brings nothing larger.
+ */
+public class CliqueHeuristic {
+    // Memory cap for remembering which cliques the heuristic has already built
+    public static final long DEDUPE_BYTES = 64L << 20;
+    // Windows in a row without a larger clique before giving up
+    private static final int PATIENCE = 100;
+    // Graphs with at least this many nodes are seeded in walk-count order rather than degree order
+    private static final int LARGE_GRAPH = 1000;
+
+    private final Graph graph;
+    private final Incumbent incumbent;
+    private final RandomGenerator random;
+    private final WorkerStats stats;
+    private final int nodes;
+    private final long edges;
+    private final int prime;
+    private final int[] sortedNodes;
+    private final CliqueFingerprints cliques; // For seeing if a clique was already found
+    private final CliquePool pool; // Pool for randomly selecting cliques, bucketed by size
+
+    // Cliques are combined a word at a time in these buffers; only accepted ones are copied into the pool
+    private final int stride;
+    private final long[] first;
+    private final long[] second;
+    private final long[] candidate;
+    private final long[] scratch;
+    private final long[] largestClique;
+
+    private int cutoff = 1;
+    private int largest = 1;
+    private double windowPower = 2;
+    private int node;
+    private int iterationsAtCurrentLargest;
+
+    /**
+     * @param incumbent every new largest clique is offered here as soon as it is built
+     * @param dedupeBytes memory cap for remembering cliques already built
+     */
+    public CliqueHeuristic(Graph graph, Incumbent incumbent, RandomGenerator random, long dedupeBytes) {
+        this(graph, incumbent, random, dedupeBytes, defaultOrder(graph), new WorkerStats());
+    }
+
+    /**
+     * @param sortedNodes the order in which starting cliques are built greedily, and extensions are tried
+     * @param stats counts each combination and extension tried as a node expanded, and each new incumbent;
+     * only the thread running this heuristic may update it
+     */
+    public CliqueHeuristic(Graph graph, Incumbent incumbent, RandomGenerator random, long dedupeBytes, int[] sortedNodes, WorkerStats stats) {
+        this.graph = graph;
+        this.incumbent = incumbent;
+        this.random = random;
+        this.stats = stats;
+        nodes = graph.nodes();
+        edges = graph.edges();
+        prime = findPrime(nodes);
+        this.sortedNodes = sortedNodes;
+        cliques = new CliqueFingerprints(dedupeBytes, false);
+        pool = new CliquePool(nodes);
+
+        stride = graph.stride();
+        first = new long[stride];
+        second = new long[stride];
+        candidate = new long[stride];
+        scratch = new long[3 * stride];
+        largestClique = new long[stride];
+    }
+
+    /**
+     * Ascending degree, or on large graphs ascending walk count, which also weighs how well connected
+     * the neighbors are and costs only a few matrix-vector products there.
+     */
+    public static int[] defaultOrder(Graph graph) {
+        return graph.nodes() >= LARGE_GRAPH ? graph.getNodesSortedByWalkSize() : graph.getNodesSortedByDegree();
+    }
+
+    public int largest() {
+        return largest;
+    }
+
+    /**
+     * @return the largest clique this heuristic has built
+     */
+    public int[] largestClique() {
+        return Graph.wordsToArray(largestClique, 0, stride);
+    }
+
+    /**
+     * Builds the starting cliques: for each node in order of degree, the greedy clique of it and the nodes
+     * after it, then every pairwise combination of those.
+     * @return false if there are too few cliques to go on combining
+     */
+    public boolean seed(Cancellation stop) {
+        for (int i = 0; i < sortedNodes.length; ++i) {
+            boolean connected = true;
+            BitSet clique = new BitSet(sortedNodes.length);
+            clique.set(sortedNodes[i]);
+            for (int j = i + 1; connected && j < sortedNodes.length; ++j) {
+                for (int k = i; connected && k < j; ++k) {
+                    if (!graph.hasEdge(sortedNodes[k], sortedNodes[j]))
+                        connected = false;
+                }
+                if (connected) {
+                    update((BitSet) clique.clone());
+                    clique.set(sortedNodes[j]);
+                }
+            }
+            update(clique);
+        }
+
+        if (cliques.size() < 2)
+            return false;
+
+        // All pairs
+        int initialSize = pool.size();
+        long[] initial = new long[initialSize * stride];
+        for (int i = 0; i < initialSize; ++i)
+            pool.get(i, initial, i * stride);
+        for (int i = 0; i < initialSize - 1 && !stop.isCancelled(); ++i)
+            for (int j = i + 1; j < initialSize; ++j) {
+                ++stats.nodesExpanded;
+                int size = graph.combineCliques(initial, i * stride, initial, j * stride, candidate, 0, scratch);
+                if (size > 0 && !cliques.contains(candidate, 0, stride))
+                    update(candidate, 0, size);
+            }
+
+        return true;
+    }
+
+    /**
+     * One combination, one window of extensions, then a combination for every other node.
+     * @return false once too many windows in a row have found nothing larger, or stop is cancelled
+     */
+    public boolean round(Cancellation stop) {
+        combine();
+        window(stop);
+        if (iterationsAtCurrentLargest >= PATIENCE)
+            return false;
+
+        for (int i = 1; i < nodes && !stop.isCancelled(); ++i)
+            combine();
+        return !stop.isCancelled();
+    }
+
+    /**
+     * Copies up to max of the largest cliques into out, stride() longs each, starting at offset.
+     * @return how many were copied
+     */
+    public int emigrants(long[] out, int offset, int max) {
+        int count = Math.min(max, pool.size());
+        for (int i = 0; i < count; ++i)
+            pool.get(pool.size() - 1 - i, out, offset + i * stride);
+        return count;
+    }
+
+    /**
+     * Takes in count cliques from in, stride() longs each, starting at offset, skipping any already built.
+     */
+    public void immigrate(long[] in, int offset, int count) {
+        for (int i = 0; i < count; ++i) {
+            int start = offset + i * stride;
+            if (!cliques.contains(in, start, stride)) {
+                int size = 0;
+                for (int j = 0; j < stride; ++j)
+                    size += Long.bitCount(in[start + j]);
+                update(in, start, size);
+            }
+        }
+    }
+
+    /**
+     * @return number of longs in each clique passed to {@link #emigrants} and {@link #immigrate}
+     */
+    public int stride() {
+        return stride;
+    }
+
+    private void combine() {
+        int firstRank = pool.sample(random, 2);
+        int secondRank;
+        do {
+            secondRank = pool.sample(random, 2);
+        } while (secondRank == firstRank);
+
+        pool.get(firstRank, first, 0);
+        pool.get(secondRank, second, 0);
+        ++stats.nodesExpanded;
+        int size = graph.combineCliques(first, 0, second, 0, candidate, 0, scratch);
+        if (size > 0 && !cliques.contains(candidate, 0, stride)) {
+            int before = largest;
+            update(candidate, 0, size);
+            if (largest > before)
+                iterationsAtCurrentLargest = 0;
+        }
+    }
+
+    private void window(Cancellation stop) {
+        if (pool.size() > edges) {
+            ++cutoff;
+            windowPower = 2;
+            // Remove small cliques
+            pool.removeUpTo(cutoff);
+        }
+
+        int largestBeforeWindow = largest;
+        for (int i = 0; i < nodes && !stop.isCancelled(); ++i) {
+            boolean found = false;
+            int cliqueSize = pool.get(pool.sample(random, windowPower), first, 0);
+
+            for (int repeat = 0; repeat < nodes && !found; ++repeat) {
+                boolean added = graph.addNode(first, 0, sortedNodes[node], candidate, 0);
+                ++stats.nodesExpanded;
+                node = (node + prime) % nodes;
+                if (added && !cliques.contains(candidate, 0, stride)) {
+                    update(candidate, 0, cliqueSize + 1);
+                    found = true;
+                }
+            }
+        }
+
+        // No larger clique found, so widen the window toward smaller cliques
+        if (largest == largestBeforeWindow) {
+            windowPower = Math.max(windowPower - .1, 0);
+        }
+        else {
+            windowPower = Math.min(windowPower + .1, 5);
+            iterationsAtCurrentLargest = 0;
+        }
+
+        ++iterationsAtCurrentLargest;
+    }
+
+    private void update(BitSet clique) {
+        long[] words = clique.toLongArray();
+        System.arraycopy(words, 0, candidate, 0, words.length);
+        Arrays.fill(candidate, words.length, stride, 0);
+        update(candidate, 0, clique.cardinality());
+    }
+
+    /**
+     * Records the clique of the given size held at offset in set, copying it into the pool if it is
+     * above the cutoff.
+     */
+    private void update(long[] set, int offset, int size) {
+        if (size > largest) {
+            if (incumbent.offer(Graph.wordsToArray(set, offset, stride)))
+                ++stats.incumbentUpdates;
+            System.arraycopy(set, offset, largestClique, 0, stride);
+        }
+        if (size > cutoff) {
+            cliques.add(set, offset, stride);
+            pool.add(set, offset, size);
+            largest = Math.max(size, largest);
+        }
+    }
+
+    private static int findPrime(int value) {
+        if (value % 2 == 0)
+            --value;
+        else
+            value -= 2;
+
+        while (!isPrime(value)) {
+            value -= 2;
+        }
+
+        return value;
+    }
+
+    private static boolean isPrime(int value) {
+        if (value == 2)
+            return true;
+        else if (value % 2 == 0)
+            return false;
+        for (int i = 3; i*i <= value; i += 2)
+            if (value % i == 0)
+                return false;
+
+        return true;
+    }
+}
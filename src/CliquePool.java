@@ -0,0 +1,128 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The heuristic's working set of cliques, bucketed by size. Each bucket packs its cliques into one long[] arena,
+ * a fixed number of words per clique, so the pool holds no per-clique objects.
+ * <p>
+ * Cliques are ranked smallest first, as if the pool were a list sorted by cardinality, without ever sorting it:
+ * the rank of the first clique of each size comes from a Fenwick tree of bucket counts. Adding a clique and
+ * drawing a biased rank are therefore constant time apart from a walk down that tree, whose height is the log of
+ * the number of distinct sizes. Raising the cutoff drops whole buckets.
+ */
+public class CliquePool {
+    private final int stride;
+    private final long[][] arenas;
+    private final int[] counts;
+    // Fenwick tree over counts, 1-based by size
+    private final int[] tree;
+    private int size;
+    private int largestSize;
+
+    public CliquePool(int nodes) {
+        stride = BitMatrix.wordsFor(nodes);
+        arenas = new long[nodes + 1][];
+        counts = new int[nodes + 1];
+        tree = new int[nodes + 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the clique held in stride words of words starting at offset.
+     */
+    public void add(long[] words, int offset, int cardinality) {
+        long[] arena = reserve(cardinality);
+        System.arraycopy(words, offset, arena, counts[cardinality] * stride, stride);
+        added(cardinality);
+    }
+
+    /**
+     * Copies the clique at rank into stride words of words starting at offset.
+     * @return its cardinality
+     */
+    public int get(int rank, long[] words, int offset) {
+        int cardinality = bucket(rank);
+        int index = rank - prefix(cardinality - 1);
+        System.arraycopy(arenas[cardinality], index * stride, words, offset, stride);
+        return cardinality;
+    }
+
+    /**
+     * Draws a rank with density proportional to rank^power, so a power of 0 is uniform and larger powers
+     * favor the largest cliques. Same distribution as (int) pow(pow(size, power + 1) * u, 1 / (power + 1)),
+     * with one pow instead of two: size * u^(1 / (power + 1)) inverts the CDF x^(power + 1) directly.
+     */
+    public int sample(RandomGenerator random, double power) {
+        double fraction = Math.pow(random.nextDouble(), 1 / (power + 1));
+        return Math.min((int) (fraction * size), size - 1);
+    }
+
+    /**
+     * Drops every clique with at most cardinality nodes.
+     */
+    public void removeUpTo(int cardinality) {
+        for (int k = 1; k <= Math.min(cardinality, largestSize); ++k) {
+            if (counts[k] == 0)
+                continue;
+            update(k, -counts[k]);
+            size -= counts[k];
+            counts[k] = 0;
+            arenas[k] = null;
+        }
+    }
+
+    private long[] reserve(int cardinality) {
+        long[] arena = arenas[cardinality];
+        int needed = (counts[cardinality] + 1) * stride;
+        if (arena == null)
+            arena = arenas[cardinality] = new long[Math.max(needed, 16 * stride)];
+        else if (arena.length < needed)
+            arena = arenas[cardinality] = Arrays.copyOf(arena, Math.max(needed, 2 * arena.length));
+        return arena;
+    }
+
+    private void added(int cardinality) {
+        ++counts[cardinality];
+        ++size;
+        largestSize = Math.max(largestSize, cardinality);
+        update(cardinality, 1);
+    }
+
+    private void update(int cardinality, int delta) {
+        for (int i = cardinality + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    /**
+     * @return number of cliques with at most cardinality nodes
+     */
+    private int prefix(int cardinality) {
+        int sum = 0;
+        for (int i = cardinality + 1; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * @return the size of the clique at rank: the smallest cardinality whose prefix count exceeds rank
+     */
+    private int bucket(int rank) {
+        if (rank < 0 || rank >= size)
+            throw new IndexOutOfBoundsException("Rank " + rank + " is out of bounds for a pool of " + size + "!");
+
+        int position = 0;
+        int remaining = rank;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        // Tree index position + 1 holds the bucket, and tree indices are the cardinality plus one
+        return position;
+    }
+}
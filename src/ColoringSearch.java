@@ -0,0 +1,325 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Exact maximum clique search over a {@link BitMatrix} in the style of MCQ/BBMC.
+ * The candidate set at every node is greedily colored with word-parallel row operations,
+ * and the number of colors bounds how large a clique the candidates can still produce.
+ */
+public class ColoringSearch {
+    private final BitMatrix graph;
+    private final Reduction reduction;
+    private final boolean deterministic;
+    // The shared incumbent is size * scale + rank. In racing mode scale is 1 and every rank is 0. In deterministic
+    // mode a clique under root r has rank r + 1, so at equal size the clique earlier in search order is larger.
+    private final long scale;
+
+    /**
+     * Reduces graph to the k-core at a heuristic lower bound, renumbered in smallest-last order,
+     * up front; cliques are mapped back to the original ids.
+     */
+    public ColoringSearch(BitMatrix graph) {
+        this(graph, false);
+    }
+
+    /**
+     * In deterministic mode the search returns the same clique on every run: the first maximum clique
+     * in search order (roots from the last node down, then depth-first within a root). A branch that can
+     * only tie the incumbent is still explored if the incumbent comes from a later root, so the first maximum
+     * clique is found however the threads interleave; progress lines are printed in root order.
+     */
+    public ColoringSearch(BitMatrix graph, boolean deterministic) {
+        reduction = new Reduction(graph);
+        this.graph = reduction.graph();
+        this.deterministic = deterministic;
+        scale = deterministic ? this.graph.nodes() + 1 : 1;
+    }
+
+    public int[] findLargestClique() throws ExecutionException, InterruptedException {
+        return solve(new SolveOptions()).clique();
+    }
+
+    /**
+     * Searches until the clique is proven maximum, the time limit passes or the solve is cancelled,
+     * whichever comes first. Every improvement, starting with the heuristic clique, goes to the listener.
+     * Cliques other searches put in a shared incumbent raise the bound within about a thousand search nodes.
+     */
+    public SolveResult solve(SolveOptions options) throws ExecutionException, InterruptedException {
+        final int THREADS = options.threads();
+        Run run = new Run(options);
+        run.incumbent.offer(reduction.clique());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; ++i)
+            workers.add(new Worker(run));
+
+        ProgressReporter reporter = options.progressInterval() == null ? null
+                : new ProgressReporter(run.stats, run.incumbent, options.progressInterval(), System.out);
+        List<Future<long[]>> futures;
+        try {
+            futures = executor.invokeAll(workers);
+        }
+        finally {
+            executor.shutdown();
+            if (reporter != null)
+                reporter.close();
+        }
+
+        long searchNodes = 0;
+        int largestCardinality = 0;
+        int largestRoot = -1;
+        long[] largestClique = null;
+
+        for (int i = 0; i < THREADS; ++i) {
+            long[] clique = futures.get(i).get();
+            Worker worker = workers.get(i);
+            searchNodes += worker.stats.nodesExpanded;
+            // On a tie the clique from the higher root was found earlier in search order
+            if (worker.largestCardinality > largestCardinality
+                    || worker.largestCardinality == largestCardinality && worker.largestRoot > largestRoot) {
+                largestClique = clique;
+                largestCardinality = worker.largestCardinality;
+                largestRoot = worker.largestRoot;
+            }
+        }
+
+        // A stopped search has skipped roots, so its best is only whatever the incumbent holds
+        if (run.stopped)
+            return new SolveResult(run.incumbent.clique(), false, searchNodes, run.incumbent.elapsedNanos(), run.stats);
+
+        int[] clique = reduction.restore(largestClique == null ? null : graph.setToArray(largestClique, 0));
+        // Once a shared incumbent has raised the bound, the search only proves that nothing beats it
+        if (run.incumbent.size() > clique.length)
+            clique = run.incumbent.clique();
+        return new SolveResult(clique, true, searchNodes, run.incumbent.elapsedNanos(), run.stats);
+    }
+
+    /**
+     * State shared by the workers of one solve.
+     */
+    private class Run {
+        // Only cliques larger than the heuristic's are worth finding; it outranks every root on a tie
+        final LongAccumulator largest = new LongAccumulator(Long::max, reduction.lowerBound() * scale + scale - 1);
+        // Go backwards: in smallest-last order, high-numbered nodes come from the sparse periphery and finish fastest
+        final AtomicInteger nextRoot = new AtomicInteger(graph.nodes() - 1);
+        final Progress progress;
+        final Incumbent incumbent;
+        final SearchStats stats;
+        final Cancellation cancellation;
+        final long start = System.nanoTime();
+        final long timeLimitNanos;
+        volatile boolean stopped;
+
+        Run(SolveOptions options) {
+            incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+            stats = options.stats() != null ? options.stats() : new SearchStats();
+            progress = options.printRoots() ? new Progress(graph.nodes()) : null;
+            cancellation = options.cancellation();
+            timeLimitNanos = options.timeLimitNanos();
+        }
+
+        /**
+         * Also takes in anything others have added to the incumbent. In deterministic mode it cannot be ranked
+         * against the roots, so it is only written to.
+         */
+        boolean shouldStop() {
+            if (!deterministic)
+                largest.accumulate(incumbent.size());
+            if (!stopped && (cancellation.isCancelled() || System.nanoTime() - start >= timeLimitNanos))
+                stopped = true;
+            return stopped;
+        }
+    }
+
+    /**
+     * Prints the per-root lines, if asked for. In racing mode they go out as roots finish. In deterministic
+     * mode a line is held back until every higher root has finished, and it leaves out the best size,
+     * which depends on how the threads happened to interleave.
+     */
+    private class Progress {
+        private final String[] pending;
+        private int nextRoot;
+
+        Progress(int nodes) {
+            pending = deterministic ? new String[nodes] : null;
+            nextRoot = nodes - 1;
+        }
+
+        void finished(int root, int best) {
+            int node = reduction.kept()[root];
+            if (!deterministic) {
+                System.out.println("[Finished starting at node " + node + " Best: " + best + "]");
+                return;
+            }
+
+            synchronized (this) {
+                pending[root] = "[Finished starting at node " + node + "]";
+                for (; nextRoot >= 0 && pending[nextRoot] != null; --nextRoot) {
+                    System.out.println(pending[nextRoot]);
+                    pending[nextRoot] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes roots from a shared counter until none are left. All buffers are allocated when the worker
+     * is created (or, for the per-depth color arrays, the first time a depth is reached), so the search
+     * itself allocates nothing.
+     */
+    private class Worker implements Callable<long[]> {
+        // Look at the clock, cancellation and shared incumbent once per this many search nodes
+        private static final int CHECK_INTERVAL = 1 << 10;
+
+        private final Run run;
+        private final WorkerStats stats;
+        private final LongAccumulator largest;
+        private final int stride;
+        private final long[] clique;
+        // Best clique under the current root, and best over all of this worker's roots
+        private final long[] rootClique;
+        private int rootCardinality;
+        private long rank;
+        private final long[] largestClique;
+        private int largestCardinality;
+        private int largestRoot = -1;
+        // Candidate set for depth d lives at [d * stride, (d + 1) * stride); no clique is deeper than max degree + 1
+        private final long[] candidates;
+        private final long[] uncolored;
+        private final long[] available;
+        private final int maxDegree;
+        private final int[][] orders;
+        private final int[][] colorings;
+        private boolean stopped;
+
+        Worker(Run run) {
+            this.run = run;
+            stats = run.stats.newWorker();
+            largest = run.largest;
+            stride = graph.stride();
+            maxDegree = graph.maxDegree();
+            final int DEPTHS = maxDegree + 1;
+            clique = new long[stride];
+            rootClique = new long[stride];
+            largestClique = new long[stride];
+            candidates = new long[DEPTHS * stride];
+            uncolored = new long[stride];
+            available = new long[stride];
+            orders = new int[DEPTHS][];
+            colorings = new int[DEPTHS][];
+        }
+
+        @Override
+        public long[] call() {
+            AtomicInteger nextRoot = run.nextRoot;
+            for (int node = nextRoot.getAndDecrement(); node >= 0 && !run.shouldStop(); node = nextRoot.getAndDecrement()) {
+                BitMatrix.set(clique, 0, node);
+                System.arraycopy(clique, 0, rootClique, 0, stride);
+                rootCardinality = 1;
+                rank = deterministic ? node + 1 : 0;
+                long rootStart = System.nanoTime();
+
+                // Only look at neighbors with larger indexes than the starting node
+                // (To avoid repetition)
+                graph.copyRow(node, candidates, 0);
+                BitMatrix.clearThrough(candidates, 0, node);
+
+                if ((graph.popcount(candidates, 0) + 1) * scale + rank > largest.get())
+                    expand(0, 1);
+                else
+                    ++stats.prunedByBound;
+
+                if (stopped)
+                    break;
+
+                // Roots are taken in decreasing order, so on a tie the earlier root keeps its clique
+                if (rootCardinality > largestCardinality) {
+                    System.arraycopy(rootClique, 0, largestClique, 0, stride);
+                    largestCardinality = rootCardinality;
+                    largestRoot = node;
+                }
+
+                BitMatrix.clear(clique, 0, node);
+                stats.rootFinished(System.nanoTime() - rootStart);
+                if (run.progress != null)
+                    run.progress.finished(node, largestCardinality);
+            }
+
+            return largestClique;
+        }
+
+        private void expand(int depth, int cardinality) {
+            if ((++stats.nodesExpanded & (CHECK_INTERVAL - 1)) == 0 && run.shouldStop()) {
+                stopped = true;
+                return;
+            }
+
+            final int OFFSET = depth * stride;
+            int count = graph.popcount(candidates, OFFSET);
+            stats.depth(depth);
+            if (orders[depth] == null) {
+                orders[depth] = new int[maxDegree];
+                colorings[depth] = new int[maxDegree];
+            }
+            int[] order = orders[depth];
+            int[] colors = colorings[depth];
+            colorSort(graph, candidates, OFFSET, uncolored, available, order, colors);
+
+            for (int i = count - 1; i >= 0; --i) {
+                // Colors only decrease from here, so nothing later can beat the bound either
+                if ((cardinality + colors[i]) * scale + rank <= largest.get()) {
+                    stats.prunedByBound += i + 1;
+                    return;
+                }
+
+                int node = order[i];
+                BitMatrix.set(clique, 0, node);
+
+                if (cardinality + 1 > rootCardinality) {
+                    rootCardinality = cardinality + 1;
+                    System.arraycopy(clique, 0, rootClique, 0, stride);
+                    largest.accumulate((cardinality + 1) * scale + rank);
+                    if (cardinality + 1 > run.incumbent.size() && run.incumbent.offer(reduction.restore(graph.setToArray(clique, 0))))
+                        ++stats.incumbentUpdates;
+                }
+
+                graph.intersectRow(node, candidates, OFFSET, candidates, OFFSET + stride);
+                if (!graph.isEmpty(candidates, OFFSET + stride))
+                    expand(depth + 1, cardinality + 1);
+
+                BitMatrix.clear(clique, 0, node);
+                BitMatrix.clear(candidates, OFFSET, node);
+                if (stopped)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Greedy sequential coloring of the candidates at offset. Each color class is built by repeatedly taking the
+     * first available node and removing its neighbors from what is available.
+     * On return, order holds the candidates sorted by color and colors holds the (1-based) color
+     * of each entry in order, which is non-decreasing. uncolored and available are scratch buffers of one stride.
+     */
+    static void colorSort(BitMatrix graph, long[] candidates, int offset, long[] uncolored, long[] available, int[] order, int[] colors) {
+        final int STRIDE = graph.stride();
+        System.arraycopy(candidates, offset, uncolored, 0, STRIDE);
+        int index = 0;
+        int color = 0;
+
+        while (!graph.isEmpty(uncolored, 0)) {
+            ++color;
+            System.arraycopy(uncolored, 0, available, 0, STRIDE);
+            for (int node = graph.nextSetBit(available, 0, 0); node >= 0; node = graph.nextSetBit(available, 0, node + 1)) {
+                BitMatrix.clear(uncolored, 0, node);
+                graph.removeRow(node, available, 0);
+                order[index] = node;
+                colors[index] = color;
+                ++index;
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Reads DIMACS .clq files by memory-mapping them and parsing the p and e lines straight
+ * from the bytes, without creating a String per line. Large files are cut into chunks at
+ * newlines and the chunks are parsed in parallel.
+ */
+public class DimacsLoader {
+    // Below this many bytes of edge lines, splitting into chunks costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 1 << 21;
+    private static final int CHUNK_SIZE = 1 << 19;
+    // Each chunk of a sparse load is mapped on its own, so larger chunks mean fewer mappings
+    private static final int SPARSE_CHUNK_SIZE = 1 << 24;
+
+    public static BitMatrix load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parse(map(channel, path));
+        }
+    }
+
+    /**
+     * Same as {@link #load(Path)}, but builds a {@link SparseGraph} with a {@link SparseGraphBuilder}. The file is
+     * read twice, once to count each node's edges and once to fill them in, so nothing besides the graph
+     * is held in memory beyond a batch of parsed chunks, and it is mapped a chunk at a time, so it may be
+     * larger than 2 GB.
+     */
+    public static SparseGraph loadSparse(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long SIZE = channel.size();
+            int[] cursor = new int[1];
+            final int NODES = parseHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(SIZE, Integer.MAX_VALUE)), cursor);
+
+            // Chunk boundaries always fall just after a newline
+            List<Long> starts = new ArrayList<>();
+            long position = cursor[0];
+            while (position < SIZE) {
+                starts.add(position);
+                position = Math.min(position + SPARSE_CHUNK_SIZE, SIZE);
+                if (position < SIZE)
+                    position = nextLine(channel, position, SIZE);
+            }
+            starts.add(SIZE);
+
+            SparseGraphBuilder builder = new SparseGraphBuilder(NODES);
+            parseChunks(channel, starts, NODES, builder::count);
+            builder.allocate();
+            parseChunks(channel, starts, NODES, builder::add);
+            return builder.build();
+        }
+    }
+
+    public static BitMatrix parse(ByteBuffer buffer) {
+        int[] cursor = new int[1];
+        final int NODES = parseHeader(buffer, cursor);
+        BitMatrix matrix = new BitMatrix(NODES);
+        // Setting bits is cheap next to parsing, and doing it here keeps the matrix single-writer
+        for (EdgeList edges : parseChunks(buffer, cursor[0], NODES))
+            edges.addTo(matrix);
+
+        return matrix;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, Path path) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Graph file is too large to map: " + path);
+
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /**
+     * Reads up to and including the p line, leaving cursor[0] at the line after it.
+     * @return number of nodes
+     */
+    private static int parseHeader(ByteBuffer buffer, int[] cursor) {
+        final int LIMIT = buffer.limit();
+        int position = 0;
+        int nodes = 0;
+
+        // Everything before the p line is comments
+        while (position < LIMIT && nodes == 0) {
+            byte first = buffer.get(position);
+            if (first == 'e')
+                throw new IllegalArgumentException("Trying to add an edge before number of nodes is known!");
+            else if (first == 'p') {
+                cursor[0] = position + 1;
+                skipToken(buffer, cursor, LIMIT); // Format, e.g. "edge" or "col"
+                nodes = parseInt(buffer, cursor, LIMIT);
+            }
+            position = nextLine(buffer, position, LIMIT);
+        }
+
+        if (nodes == 0)
+            throw new IllegalArgumentException("Number of nodes not defined in graph file input!");
+
+        cursor[0] = position;
+        return nodes;
+    }
+
+    /**
+     * Parses the e lines from position on, in parallel chunks if there are enough of them.
+     */
+    private static List<EdgeList> parseChunks(ByteBuffer buffer, int position, int nodes) {
+        final int LIMIT = buffer.limit();
+        if (LIMIT - position < PARALLEL_THRESHOLD)
+            return List.of(parseEdges(buffer, position, LIMIT, nodes));
+
+        // Chunk boundaries always fall just after a newline
+        List<Integer> starts = new ArrayList<>();
+        while (position < LIMIT) {
+            starts.add(position);
+            position = Math.min(position + CHUNK_SIZE, LIMIT);
+            if (position < LIMIT)
+                position = nextLine(buffer, position, LIMIT);
+        }
+        starts.add(LIMIT);
+
+        return IntStream.range(0, starts.size() - 1).parallel()
+                .mapToObj(i -> parseEdges(buffer.duplicate(), starts.get(i), starts.get(i + 1), nodes))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Parses a batch of chunks at a time in parallel, then hands their edges to consumer in file order
+     * from this thread, so only one batch of edges is ever held.
+     */
+    private static void parseChunks(FileChannel channel, List<Long> starts, int nodes, EdgeConsumer consumer) {
+        final int CHUNKS = starts.size() - 1;
+        final int BATCH = Runtime.getRuntime().availableProcessors();
+        for (int first = 0; first < CHUNKS; first += BATCH) {
+            List<EdgeList> batch = IntStream.range(first, Math.min(first + BATCH, CHUNKS)).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            long start = starts.get(i);
+                            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, starts.get(i + 1) - start);
+                            return parseEdges(buffer, 0, buffer.limit(), nodes);
+                        }
+                        catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+
+            for (EdgeList edges : batch)
+                edges.forEach(consumer);
+        }
+    }
+
+    private static EdgeList parseEdges(ByteBuffer buffer, int position, int end, int nodes) {
+        EdgeList edges = new EdgeList(Math.max(16, (end - position) / 6));
+        parseEdges(buffer, position, end, nodes, edges::add);
+        return edges;
+    }
+
+    private static void parseEdges(ByteBuffer buffer, int position, int end, int nodes, EdgeConsumer consumer) {
+        int[] cursor = new int[1];
+        while (position < end) {
+            byte first = buffer.get(position);
+            if (first == 'e') {
+                cursor[0] = position + 1;
+                int from = parseInt(buffer, cursor, end) - 1;
+                int to = parseInt(buffer, cursor, end) - 1;
+                if (from < 0 || from >= nodes || to < 0 || to >= nodes)
+                    throw new IllegalArgumentException("Edge endpoint out of range at byte " + position + "!");
+                consumer.edge(from, to);
+            }
+            else if (first == 'p')
+                throw new IllegalArgumentException("Number of nodes defined multiple times in graph file input!");
+
+            position = nextLine(buffer, position, end);
+        }
+    }
+
+    /**
+     * Same as {@link #nextLine(ByteBuffer, int, int)}, reading the file a little at a time.
+     */
+    private static long nextLine(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(1 << 12);
+        while (position < end) {
+            window.clear();
+            int read = channel.read(window, position);
+            for (int i = 0; i < read; ++i)
+                if (window.get(i) == '\n')
+                    return position + i + 1;
+            position += read;
+        }
+
+        return end;
+    }
+
+    private static int nextLine(ByteBuffer buffer, int position, int end) {
+        while (position < end && buffer.get(position) != '\n')
+            ++position;
+
+        return position + 1;
+    }
+
+    private static void skipToken(ByteBuffer buffer, int[] cursor, int end) {
+        int position = cursor[0];
+        while (position < end && isBlank(buffer.get(position)))
+            ++position;
+        while (position < end && !isBlank(buffer.get(position)) && buffer.get(position) != '\n')
+            ++position;
+
+        cursor[0] = position;
+    }
+
+    private static int parseInt(ByteBuffer buffer, int[] cursor, int end) {
+        int position = cursor[0];
+        while (position < end && isBlank(buffer.get(position)))
+            ++position;
+
+        int value = 0;
+        int digits = 0;
+        byte current;
+        while (position < end && (current = buffer.get(position)) >= '0' && current <= '9') {
+            value = value * 10 + (current - '0');
+            ++position;
+            ++digits;
+        }
+
+        if (digits == 0)
+            throw new IllegalArgumentException("Expected a number at byte " + position + " of graph file input!");
+
+        cursor[0] = position;
+        return value;
+    }
+
+    private static boolean isBlank(byte value) {
+        return value == ' ' || value == '\t' || value == '\r';
+    }
+
+    private interface EdgeConsumer {
+        void edge(int from, int to);
+    }
+
+    /**
+     * Growable list of endpoint pairs parsed from one chunk.
+     */
+    private static class EdgeList {
+        private int[] pairs;
+        private int size;
+
+        EdgeList(int capacity) {
+            pairs = new int[2 * capacity];
+        }
+
+        void add(int from, int to) {
+            if (size == pairs.length)
+                pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+
+            pairs[size++] = from;
+            pairs[size++] = to;
+        }
+
+        void forEach(EdgeConsumer consumer) {
+            for (int i = 0; i < size; i += 2)
+                consumer.edge(pairs[i], pairs[i + 1]);
+        }
+
+        void addTo(BitMatrix matrix) {
+            for (int i = 0; i < size; i += 2)
+                matrix.addEdge(pairs[i], pairs[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * What an enumeration found. If it was stopped by its time limit or cancelled, some cliques were never
+ * reached and complete is false.
+ */
+public class EnumerationResult {
+    private final long cliques;
+    private final boolean complete;
+    private final long searchNodes;
+    private final long elapsedNanos;
+    private final SearchStats stats;
+
+    public EnumerationResult(long cliques, boolean complete, long searchNodes, long elapsedNanos, SearchStats stats) {
+        this.cliques = cliques;
+        this.complete = complete;
+        this.searchNodes = searchNodes;
+        this.elapsedNanos = elapsedNanos;
+        this.stats = stats;
+    }
+
+    /**
+     * @return number of cliques passed to the consumer
+     */
+    public long cliques() {
+        return cliques;
+    }
+
+    /**
+     * @return whether every root was enumerated, so the consumer has seen every clique
+     */
+    public boolean complete() {
+        return complete;
+    }
+
+    public long searchNodes() {
+        return searchNodes;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public SearchStats stats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Maximal cliques: %d%s %.3f seconds, %d search nodes", cliques,
+                complete ? "" : " (incomplete)", elapsedNanos / 1000000000.0, searchNodes);
+    }
+}
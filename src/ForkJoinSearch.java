@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Exact coloring search (same bound as {@link ColoringSearch}) on a {@link ForkJoinPool} that splits work
+ * on demand instead of at a fixed PREBRANCHING depth. The whole graph starts as one subproblem; whenever
+ * the running worker has almost nothing queued for idle workers to steal, the child it is about to descend
+ * into is forked off instead, at whatever depth that happens to be. Deep subtrees are therefore donated
+ * exactly when cores would otherwise go idle.
+ */
+public class ForkJoinSearch {
+    // Donate a child only while this worker has fewer queued tasks than this
+    private static final int SURPLUS = 2;
+    // Children with fewer candidates than this are cheaper to search than to hand over
+    private static final int MIN_SPLIT = 12;
+    // Look at the clock, cancellation and shared incumbent once per this many search nodes
+    private static final int CHECK_INTERVAL = 1 << 10;
+
+    private final BitMatrix graph;
+    private final Reduction reduction;
+    private final int maxDegree;
+
+    public ForkJoinSearch(BitMatrix graph) {
+        reduction = new Reduction(graph);
+        this.graph = reduction.graph();
+        maxDegree = this.graph.maxDegree();
+    }
+
+    public int[] findLargestClique() {
+        return solve(new SolveOptions()).clique();
+    }
+
+    public int[] findLargestClique(int threads) {
+        return solve(new SolveOptions().threads(threads)).clique();
+    }
+
+    /**
+     * Searches until the clique is proven maximum, the time limit passes or the solve is cancelled,
+     * the same way as {@link ColoringSearch#solve(SolveOptions)}.
+     */
+    public SolveResult solve(SolveOptions options) {
+        final int NODES = graph.nodes();
+        final int STRIDE = graph.stride();
+        Run run = new Run(options);
+        run.incumbent.offer(reduction.clique());
+
+        long[] candidates = new long[STRIDE];
+        for (int i = 0; i < NODES; ++i)
+            BitMatrix.set(candidates, 0, i);
+
+        ForkJoinPool pool = new ForkJoinPool(options.threads());
+        ProgressReporter reporter = options.progressInterval() == null ? null
+                : new ProgressReporter(run.stats, run.incumbent, options.progressInterval(), System.out);
+        long[] largestClique;
+        try {
+            largestClique = pool.invoke(new Subproblem(new long[STRIDE], candidates, 0, run));
+        }
+        finally {
+            pool.shutdown();
+            if (reporter != null)
+                reporter.close();
+        }
+
+        long searchNodes = 0;
+        for (WorkerStats worker : run.workers)
+            searchNodes += worker.nodesExpanded();
+
+        // A stopped search has skipped subtrees, so its best is only whatever the incumbent holds
+        if (run.stopped)
+            return new SolveResult(run.incumbent.clique(), false, searchNodes, run.incumbent.elapsedNanos(), run.stats);
+
+        int[] clique = reduction.restore(largestClique == null ? null : graph.setToArray(largestClique, 0));
+        // Once a shared incumbent has raised the bound, the search only proves that nothing beats it
+        if (run.incumbent.size() > clique.length)
+            clique = run.incumbent.clique();
+        return new SolveResult(clique, true, searchNodes, run.incumbent.elapsedNanos(), run.stats);
+    }
+
+    /**
+     * State shared by the tasks of one solve.
+     */
+    private class Run {
+        // Only cliques larger than the heuristic's are worth finding
+        final LongAccumulator largest = new LongAccumulator(Long::max, reduction.lowerBound());
+        final Incumbent incumbent;
+        final SearchStats stats;
+        final List<WorkerStats> workers = new ArrayList<>();
+        // One set of frames per pool thread. A task only joins its children after its own descent is finished,
+        // so a task run while helping a join never finds the frames in use.
+        final ThreadLocal<Frames> frames = ThreadLocal.withInitial(this::newFrames);
+        final Cancellation cancellation;
+        final long start = System.nanoTime();
+        final long timeLimitNanos;
+        volatile boolean stopped;
+
+        Run(SolveOptions options) {
+            incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+            stats = options.stats() != null ? options.stats() : new SearchStats();
+            cancellation = options.cancellation();
+            timeLimitNanos = options.timeLimitNanos();
+        }
+
+        private Frames newFrames() {
+            WorkerStats worker = stats.newWorker();
+            synchronized (workers) {
+                workers.add(worker);
+            }
+            return new Frames(worker);
+        }
+
+        /**
+         * Also takes in anything others have added to the incumbent.
+         */
+        boolean shouldStop() {
+            largest.accumulate(incumbent.size());
+            if (!stopped && (cancellation.isCancelled() || System.nanoTime() - start >= timeLimitNanos))
+                stopped = true;
+            return stopped;
+        }
+    }
+
+    private class Frames {
+        final WorkerStats stats;
+        final long[] clique;
+        // Candidate set for depth d lives at [d * stride, (d + 1) * stride)
+        final long[] candidates;
+        final long[] uncolored;
+        final long[] available;
+        final int[][] orders;
+        final int[][] colorings;
+
+        Frames(WorkerStats stats) {
+            this.stats = stats;
+            final int STRIDE = graph.stride();
+            final int DEPTHS = maxDegree + 2;
+            clique = new long[STRIDE];
+            candidates = new long[DEPTHS * STRIDE];
+            uncolored = new long[STRIDE];
+            available = new long[STRIDE];
+            orders = new int[DEPTHS][];
+            colorings = new int[DEPTHS][];
+        }
+    }
+
+    /**
+     * Finds cliques larger than startingClique that extend it with startingCandidates.
+     * Returns the largest clique found here or in any donated child, or null if none beat the starting size.
+     */
+    private class Subproblem extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] startingClique;
+        private final long[] startingCandidates;
+        private final int startingCardinality;
+        private final Run run;
+        private final LongAccumulator largest;
+        private final int stride;
+        private long[] largestClique;
+        private int largestCardinality;
+        private List<Subproblem> donated;
+
+        Subproblem(long[] startingClique, long[] startingCandidates, int startingCardinality, Run run) {
+            this.startingClique = startingClique;
+            this.startingCandidates = startingCandidates;
+            this.startingCardinality = startingCardinality;
+            this.run = run;
+            largest = run.largest;
+            stride = graph.stride();
+        }
+
+        @Override
+        protected long[] compute() {
+            Frames frames = run.frames.get();
+            long start = System.nanoTime();
+            System.arraycopy(startingClique, 0, frames.clique, 0, stride);
+            System.arraycopy(startingCandidates, 0, frames.candidates, 0, stride);
+            largestCardinality = startingCardinality;
+
+            if (!graph.isEmpty(startingCandidates, 0) && !run.stopped)
+                expand(frames, 0, startingCardinality);
+            frames.stats.rootFinished(System.nanoTime() - start);
+
+            if (donated != null) {
+                for (Subproblem child : donated) {
+                    long[] clique = child.join();
+                    if (clique != null && graph.popcount(clique, 0) > largestCardinality) {
+                        largestClique = clique;
+                        largestCardinality = graph.popcount(clique, 0);
+                    }
+                }
+            }
+
+            return largestClique;
+        }
+
+        /**
+         * @return false if the search was stopped
+         */
+        private boolean expand(Frames frames, int depth, int cardinality) {
+            WorkerStats stats = frames.stats;
+            if ((++stats.nodesExpanded & (CHECK_INTERVAL - 1)) == 0 && run.shouldStop())
+                return false;
+
+            final int OFFSET = depth * stride;
+            long[] candidates = frames.candidates;
+            long[] clique = frames.clique;
+            int count = graph.popcount(candidates, OFFSET);
+            stats.depth(depth);
+            if (frames.orders[depth] == null || frames.orders[depth].length < count) {
+                frames.orders[depth] = new int[Math.max(count, maxDegree)];
+                frames.colorings[depth] = new int[Math.max(count, maxDegree)];
+            }
+            int[] order = frames.orders[depth];
+            int[] colors = frames.colorings[depth];
+            ColoringSearch.colorSort(graph, candidates, OFFSET, frames.uncolored, frames.available, order, colors);
+
+            for (int i = count - 1; i >= 0; --i) {
+                // Colors only decrease from here, so nothing later can beat the bound either
+                if (cardinality + colors[i] <= largest.get()) {
+                    stats.prunedByBound += i + 1;
+                    return true;
+                }
+
+                int node = order[i];
+                BitMatrix.set(clique, 0, node);
+
+                if (cardinality + 1 > largestCardinality) {
+                    if (largestClique == null)
+                        largestClique = new long[stride];
+                    largestCardinality = cardinality + 1;
+                    System.arraycopy(clique, 0, largestClique, 0, stride);
+                    largest.accumulate(cardinality + 1);
+                    if (cardinality + 1 > run.incumbent.size() && run.incumbent.offer(reduction.restore(graph.setToArray(clique, 0))))
+                        ++stats.incumbentUpdates;
+                }
+
+                graph.intersectRow(node, candidates, OFFSET, candidates, OFFSET + stride);
+                int childCount = graph.popcount(candidates, OFFSET + stride);
+                if (childCount >= MIN_SPLIT && getSurplusQueuedTaskCount() < SURPLUS) {
+                    // Idle workers are about to run dry, so hand this subtree to one of them
+                    Subproblem child = new Subproblem(clique.clone(),
+                            Arrays.copyOfRange(candidates, OFFSET + stride, OFFSET + 2 * stride), cardinality + 1, run);
+                    child.fork();
+                    if (donated == null)
+                        donated = new ArrayList<>();
+                    donated.add(child);
+                    ++stats.taskSplits;
+                }
+                else if (childCount > 0 && !expand(frames, depth + 1, cardinality + 1))
+                    return false;
+
+                BitMatrix.clear(clique, 0, node);
+                BitMatrix.clear(candidates, OFFSET, node);
+            }
+
+            return true;
+        }
+    }
+}
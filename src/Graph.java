@@ -3,53 +3,93 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.LongAccumulator;
 
 public class Graph {
+    // The adjacency as packed rows, for the word-at-a-time clique kernels, and the same rows as BitSets, for the
+    // stack searches. The BitSets are built from the packed rows, which are this graph's own copy
+    private BitMatrix rows;
     private BitSet[] edges;
-    private int totalEdges;
+    private long totalEdges;
     private int[] degrees;
+    // Search frames by depth for each thread running the stack search. A task only waits on others before
+    // it has touched the frames, so one run while its thread helps with a wait never finds them in use.
+    // Frame 0 holds the root's later neighbors, at most max degree of them, and every deeper frame uses up
+    // one candidate of its parent, so the depth never exceeds max degree and max degree + 1 frames suffice
+    private final ThreadLocal<CliqueData[]> frames = ThreadLocal.withInitial(() -> new CliqueData[maxDegree() + 1]);
 
     public Graph(Scanner in) {
-        int nodes = 0;
+        this(read(in));
+    }
+
+    /**
+     * Builds the graph from its own copy of matrix, so later changes to matrix do not reach it.
+     */
+    public Graph(BitMatrix matrix) {
+        final int NODES = matrix.nodes();
+        rows = copy(matrix);
+        edges = new BitSet[NODES];
+        degrees = new int[NODES];
+        long[] row = new long[rows.stride()];
+        for (int i = 0; i < NODES; ++i) {
+            rows.copyRow(i, row, 0);
+            edges[i] = BitSet.valueOf(row);
+            degrees[i] = rows.degree(i);
+        }
+        totalEdges = rows.edges();
+    }
+
+    private static BitMatrix copy(BitMatrix matrix) {
+        return new BitMatrix(matrix.nodes(), matrix.words().clone(), matrix.degrees().clone(), matrix.edges());
+    }
+
+    private static BitMatrix read(Scanner in) {
+        BitMatrix matrix = null;
         while (in.hasNextLine()) {
             String line = in.nextLine();
             if (line.startsWith("p ")) {
-                if (nodes != 0)
+                if (matrix != null)
                     throw new IllegalArgumentException("Number of nodes defined multiple times in graph file input!");
                 String[] parts = line.split("\\s+");
-                nodes = Integer.parseInt(parts[2]);
-                edges = new BitSet[nodes];
-                for (int i = 0; i < nodes; ++i)
-                    edges[i] = new BitSet(nodes);
-                degrees = new int[nodes];
+                matrix = new BitMatrix(Integer.parseInt(parts[2]));
             }
             else if (line.startsWith("e ")) {
-                if (nodes == 0)
+                if (matrix == null)
                     throw new IllegalArgumentException("Trying to add an edge before number of nodes is known!");
 
                 String[] parts = line.split("\\s+");
-                int from = Integer.parseInt(parts[1]) - 1;
-                int to = Integer.parseInt(parts[2]) - 1;
-                // In case edges are listed from both directions
-                if (!edges[from].get(to)) {
-                    edges[from].set(to);
-                    edges[to].set(from);
-                    ++degrees[to];
-                    ++degrees[from];
-                    ++totalEdges;
-                }
+                matrix.addEdge(Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2]) - 1);
             }
         }
+
+        return matrix != null ? matrix : new BitMatrix(0);
     }
 
     public int nodes() {
         return edges.length;
     }
 
-    public int edges() { return totalEdges; }
+    public long edges() { return totalEdges; }
+
+    /**
+     * @return number of longs in each clique buffer taken by the word-at-a-time kernels
+     */
+    public int stride() {
+        return rows.stride();
+    }
 
     public boolean hasEdge(int from, int to) {
         return edges[from].get(to);
     }
 
+    public BitMatrix toBitMatrix() {
+        return copy(rows);
+    }
+
+    /**
+     * @return copy of this graph in which node i is original node order[i]
+     */
+    public Graph renumber(int[] order) {
+        return new Graph(rows.permute(order));
+    }
+
     public int cliqueUpperBound() {
         int[] degreesCopy = degrees.clone();
         Arrays.sort(degreesCopy);
@@ -82,6 +122,20 @@ public class Graph {
         return nodes;
     }
 
+    public static int[] wordsToArray(long[] set, int offset, int words) {
+        int count = 0;
+        for (int i = 0; i < words; ++i)
+            count += Long.bitCount(set[offset + i]);
+
+        int[] nodes = new int[count];
+        int index = 0;
+        for (int i = 0; i < words; ++i)
+            for (long word = set[offset + i]; word != 0; word &= word - 1)
+                nodes[index++] = (i << 6) + Long.numberOfTrailingZeros(word);
+
+        return nodes;
+    }
+
     public boolean isClique(BitSet nodes) {
         return isClique(bitSetToArray(nodes));
     }
@@ -100,41 +154,11 @@ public class Graph {
         return true;
     }
 
+    /**
+     * @see VertexOrdering#byDensity(BitMatrix)
+     */
     public int[] getNodesSortedByDensity() {
-        double[] degrees = new double[this.degrees.length];
-        for (int i = 0; i < degrees.length; ++i)
-            degrees[i] = this.degrees[i];
-        double[] scratch = new double[degrees.length];
-
-        for (int iteration = 0; iteration < Math.log(edges.length); ++iteration) {
-            for (int i = 0; i < edges.length; ++i) {
-                scratch[i] = 0;
-                BitSet currentEdges = edges[i];
-                for (int j = 0; j < edges[i].length(); ++j) {
-                    if (currentEdges.get(j)) {
-                        scratch[i] += degrees[j]/2.0;
-                    }
-                }
-                scratch[i] /= this.degrees[i];
-                scratch[i] += degrees[i];
-            }
-            double[] temp = degrees;
-            degrees = scratch;
-            scratch = temp;
-        }
-
-        Integer[] nodes = new Integer[edges.length];
-        for (int i = 0; i < nodes.length; ++i)
-            nodes[i] = i;
-
-        double[] finalDegrees = degrees;
-        Arrays.sort(nodes, Comparator.comparingDouble(integer -> finalDegrees[integer]));
-
-        int[] sorted = new int[nodes.length];
-        for (int i = 0; i < sorted.length; ++i)
-            sorted[i] = nodes[i];
-
-        return sorted;
+        return VertexOrdering.byDensity(rows);
     }
 
     public int[] getNodesSortedByDegree() {
@@ -195,6 +219,21 @@ public class Graph {
         return newClique;
     }
 
+    /**
+     * Same as {@link #addNode(BitSet, int)} on packed cliques: stores clique plus node into result if node is
+     * adjacent to every node of clique. Nothing is written if it is not. The two buffers may be the same.
+     * @return true if clique plus node is a clique
+     */
+    public boolean addNode(long[] clique, int cliqueOffset, int node, long[] result, int resultOffset) {
+        if (!rows.isSubsetOfRow(node, clique, cliqueOffset))
+            return false;
+
+        if (result != clique || resultOffset != cliqueOffset)
+            System.arraycopy(clique, cliqueOffset, result, resultOffset, rows.stride());
+        BitMatrix.set(result, resultOffset, node);
+        return true;
+    }
+
     /**
      * Unions two cliques together to make a new clique. This method will return null if the resulting union
      * is not a clique. Output is undefined if input cliques are not, in fact, cliques.
@@ -276,6 +315,64 @@ public class Graph {
             return null;
     }
 
+    /**
+     * Same as {@link #combineCliques(BitSet, BitSet)} on packed cliques, without allocating. The nodes of first
+     * that are adjacent to all of second minus first are the nodes of first minus second ANDed with the rows of
+     * second minus first, a word at a time, and the same the other way round.
+     * @param result where the combined clique is stored; it is overwritten even if the combination is rejected
+     * @param scratch at least 3 * {@link #stride()} longs
+     * @return size of the new clique, or 0 if it is not larger than both input cliques
+     */
+    public int combineCliques(long[] first, int firstOffset, long[] second, int secondOffset,
+                              long[] result, int resultOffset, long[] scratch) {
+        final int STRIDE = rows.stride();
+        final int FIRST_ONLY = 0;
+        final int SECOND_ONLY = STRIDE;
+        final int KEPT = 2 * STRIDE;
+
+        int firstSize = 0;
+        int secondSize = 0;
+        long firstOnlyAny = 0;
+        long secondOnlyAny = 0;
+        for (int i = 0; i < STRIDE; ++i) {
+            long firstWord = first[firstOffset + i];
+            long secondWord = second[secondOffset + i];
+            scratch[FIRST_ONLY + i] = firstWord & ~secondWord;
+            scratch[SECOND_ONLY + i] = secondWord & ~firstWord;
+            firstOnlyAny |= scratch[FIRST_ONLY + i];
+            secondOnlyAny |= scratch[SECOND_ONLY + i];
+            result[resultOffset + i] = firstWord & secondWord;
+            firstSize += Long.bitCount(firstWord);
+            secondSize += Long.bitCount(secondWord);
+        }
+
+        if (firstOnlyAny == 0 || secondOnlyAny == 0)
+            return 0;
+
+        keepConnected(scratch, FIRST_ONLY, SECOND_ONLY, KEPT, result, resultOffset);
+        keepConnected(scratch, SECOND_ONLY, FIRST_ONLY, KEPT, result, resultOffset);
+
+        int newSize = rows.popcount(result, resultOffset);
+        return newSize > firstSize && newSize > secondSize ? newSize : 0;
+    }
+
+    /**
+     * Adds to result the nodes of scratch at from that are adjacent to every node of scratch at to,
+     * using scratch at kept as working space.
+     */
+    private void keepConnected(long[] scratch, int from, int to, int kept, long[] result, int resultOffset) {
+        final int STRIDE = rows.stride();
+        System.arraycopy(scratch, from, scratch, kept, STRIDE);
+        for (int node = rows.nextSetBit(scratch, to, 0); node >= 0; node = rows.nextSetBit(scratch, to, node + 1)) {
+            rows.intersectRow(node, scratch, kept, scratch, kept);
+            if (rows.isEmpty(scratch, kept))
+                return;
+        }
+
+        for (int i = 0; i < STRIDE; ++i)
+            result[resultOffset + i] |= scratch[kept + i];
+    }
+
     public static double[][] power(double[][] matrix, int power) {
         if (power < 1)
             throw new IllegalArgumentException("Invalid power: " + power);
@@ -301,54 +398,48 @@ public class Graph {
         return c;
     }
 
+    /**
+     * @see VertexOrdering#byWalkCount(BitMatrix)
+     */
     public int[] getNodesSortedByWalkSize() {
-        final int NODES = edges.length;
-
-        double[][] matrix = new double[NODES][NODES];
-        for (int i = 0; i < NODES - 1; ++i)
-            for (int j = i + 1; j < NODES; ++j)
-                if (edges[i].get(j)) {
-                    matrix[i][j] = 1;
-                    matrix[j][i] = 1;
-                }
-
-        // How big of a walk? Square root of nodes to start with
-         int walkLength = (int)Math.round(Math.log(NODES));
-        //int walkLength = NODES;
-        double[][] walkMatrix = power(matrix, walkLength);
-
-        double[] totalWalks = new double[NODES];
-        for (int i = 0; i < NODES; ++i)
-            for (int j = 0; j < NODES; ++j)
-                totalWalks[i] += walkMatrix[i][j];
-
-        Integer[] nodes = new Integer[NODES];
-        for (int i = 0; i < NODES; ++i)
-            nodes[i] = i;
-
-        Arrays.sort(nodes, Comparator.comparingDouble(integer -> totalWalks[integer]));
-
-        int[] sorted = new int[NODES];
-        for (int i = 0; i < NODES; ++i)
-            sorted[i] = nodes[i];
-
-        return sorted;
+        return VertexOrdering.byWalkCount(rows);
     }
 
     public int[] findLargestClique() {
+        return findLargestClique(new SolveOptions());
+    }
+
+    /**
+     * Plain recursive search from every node in turn, on the calling thread. Only the statistics, progress
+     * and root line options are used; the search always runs to the end.
+     */
+    public int[] findLargestClique(SolveOptions options) {
         final int NODES = edges.length;
         BitSet currentClique = new BitSet(NODES);
         BitSet largestClique = new BitSet(NODES);
-        for (int i = 0; i < NODES; ++i) {
-            System.out.println("Starting at: " + i);
-            currentClique.clear();
-            currentClique.set(i);
-            findLargestClique(i, currentClique, largestClique);
+        try (LegacyRun run = new LegacyRun(options, null, 0)) {
+            WorkerStats stats = run.workers.get();
+            for (int i = 0; i < NODES; ++i) {
+                long rootStart = System.nanoTime();
+                currentClique.clear();
+                currentClique.set(i);
+                findLargestClique(i, currentClique, largestClique, stats);
+                stats.rootFinished(System.nanoTime() - rootStart);
+                run.rootFinished(i, bitSetToArray(largestClique));
+            }
         }
         return bitSetToArray(largestClique);
     }
 
 
+    /**
+     * Exact search with a greedy-coloring bound, run on the packed {@link BitMatrix} form of this graph.
+     * @return nodes in a maximum clique
+     */
+    public int[] findLargestCliqueColoring() throws InterruptedException, ExecutionException {
+        return new ColoringSearch(toBitMatrix()).findLargestClique();
+    }
+
     /*
     public int[] findLargestCliqueStack() {
         final int NODES = edges.length;
@@ -364,16 +455,31 @@ public class Graph {
     */
 
 
+    /** Searches the graph renumbered into {@link VertexOrdering#degeneracy smallest-last} order. */
     public int[] findLargestCliqueStackThreaded() throws InterruptedException, ExecutionException {
-        ExecutorService executor = Executors.newFixedThreadPool(16);
+        return findLargestCliqueStackThreaded(new SolveOptions());
+    }
+
+    /**
+     * Same as {@link #findLargestCliqueStackThreaded()} on options.threads() threads. Only the statistics,
+     * progress and root line options are used; the search always runs to the end.
+     */
+    public int[] findLargestCliqueStackThreaded(SolveOptions options) throws InterruptedException, ExecutionException {
+        int[] order = VertexOrdering.degeneracy(rows);
+        try (LegacyRun run = new LegacyRun(options, order, 0)) {
+            return VertexOrdering.restore(renumber(order).findLargestCliqueStackThreadedInOrder(run, options.threads()), order);
+        }
+    }
+
+    private int[] findLargestCliqueStackThreadedInOrder(LegacyRun run, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
 
-        LongAccumulator largest = new LongAccumulator(Long::max, 0);
         final int NODES = edges.length;
         List<Callable<BitSet>> callableTasks = new ArrayList<>();
         // Go backwards since high-numbered nodes finish faster
         for (int i = NODES - 1; i >= 0; --i) {
             final int finalI = i;
-            callableTasks.add(() -> findLargestCliqueStack(finalI, largest));
+            callableTasks.add(() -> findLargestCliqueStack(finalI, run));
         }
 
         List<Future<BitSet>> futures = executor.invokeAll(callableTasks);
@@ -394,10 +500,25 @@ public class Graph {
     }
 
 
+    /** Searches the graph renumbered into {@link VertexOrdering#degeneracy smallest-last} order. */
     public int[] newFindLargestCliqueStackThreaded() throws InterruptedException, ExecutionException {
-        ExecutorService executor = Executors.newWorkStealingPool();
+        return newFindLargestCliqueStackThreaded(new SolveOptions());
+    }
+
+    /**
+     * Same as {@link #newFindLargestCliqueStackThreaded()} on options.threads() threads. Only the statistics,
+     * progress and root line options are used; the search always runs to the end.
+     */
+    public int[] newFindLargestCliqueStackThreaded(SolveOptions options) throws InterruptedException, ExecutionException {
+        int[] order = VertexOrdering.degeneracy(rows);
+        try (LegacyRun run = new LegacyRun(options, order, 0)) {
+            return VertexOrdering.restore(renumber(order).newFindLargestCliqueStackThreadedInOrder(run, options.threads()), order);
+        }
+    }
+
+    private int[] newFindLargestCliqueStackThreadedInOrder(LegacyRun run, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newWorkStealingPool(threads);
 
-        LongAccumulator largest = new LongAccumulator(Long::max, 0);
         final int NODES = edges.length;
         List<Future<BitSet>> futures = new ArrayList<>();
 
@@ -407,9 +528,9 @@ public class Graph {
         for (int i = NODES - 1; i >= 0; --i) {
             final int finalI = i;
             if (i >= NODES - PREBRANCHING )
-                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, largest)));
+                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, run)));
             else
-                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, largest, executor)));
+                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, run, executor)));
         }
 
         int largestCardinality = 0;
@@ -428,66 +549,106 @@ public class Graph {
         return bitSetToArray(largestClique);
     }
 
-    private BitSet findLargestCliqueStackWorker(int node, BitSet startingClique, LongAccumulator largest) {
-        final int NODES = edges.length;
-
+    /**
+     * Depth-first search below startingClique, whose last node added is node. The clique is kept in one
+     * BitSet that is updated in place, and each depth has a frame whose neighbor set is overwritten
+     * rather than cloned. Frames belong to the pool thread and outlive the task, so a task allocates
+     * nothing beyond its two cliques.
+     * Each frame's neighbor set only holds nodes adjacent to the whole clique, so a child's set is one
+     * intersection with its parent's and candidates never need to be checked against the clique.
+     */
+    private BitSet findLargestCliqueStackWorker(int node, BitSet startingClique, LegacyRun run) {
+        long start = System.nanoTime();
+        LongAccumulator largest = run.largest;
+        WorkerStats stats = run.workers.get();
+        BitSet clique = (BitSet) startingClique.clone();
         BitSet largestClique = (BitSet) startingClique.clone();
         int largestCardinality = largestClique.cardinality();
 
-        Deque<CliqueData> stack = new ArrayDeque<>();
-
-        BitSet neighbors = (BitSet) edges[node].clone();
-        BitSet mask = new BitSet(edges.length);
-        mask.flip(0, node + 1); // Only look at neighbors after the current node
-        neighbors.andNot(mask);
+        CliqueData[] frames = this.frames.get();
+        int depth = 0;
 
-        CliqueData startingData = new CliqueData();
-        startingData.clique = startingClique;
+        CliqueData startingData = frame(frames, depth);
+        startingData.node = node;
         startingData.cardinality = largestCardinality; // Actually the same as startingClique cardinality
-        startingData.neighbors = neighbors;
-        startingData.nextNeighbor = neighbors.nextSetBit(node + 1);
-        startingData.remainingNeighbors = neighbors.cardinality();
-
-        stack.push(startingData);
-
-        while (!stack.isEmpty()) {
-            CliqueData currentData = stack.peek();
+        laterNeighbors(node, startingData.neighbors);
+        // Keep only candidates that can join the whole starting clique; from here on, candidates are never re-checked
+        for (int i = startingClique.nextSetBit(0); i >= 0; i = startingClique.nextSetBit(i+1))
+            if (i != node)
+                startingData.neighbors.and(edges[i]);
+        startingData.nextNeighbor = startingData.neighbors.nextSetBit(node + 1);
+        startingData.remainingNeighbors = startingData.neighbors.cardinality();
+
+        while (depth >= 0) {
+            CliqueData currentData = frames[depth];
             if (currentData.nextNeighbor != -1 && currentData.remainingNeighbors + currentData.cardinality > largest.get()) {
                 int neighbor = currentData.nextNeighbor;
+                ++stats.nodesExpanded;
                 currentData.nextNeighbor = currentData.neighbors.nextSetBit(neighbor + 1);
                 --currentData.remainingNeighbors;
-                BitSet newClique = addNode(currentData.clique, neighbor);
-                if (newClique != null) {
-
-                    neighbors = (BitSet) edges[neighbor].clone();
-                    mask = new BitSet(edges.length);
-                    mask.flip(0, neighbor + 1);
-                    neighbors.andNot(mask);
-
-                    CliqueData newData = new CliqueData();
-                    newData.clique = newClique;
-                    newData.cardinality = currentData.cardinality + 1;
-                    newData.neighbors = neighbors;
-                    newData.nextNeighbor = neighbors.nextSetBit(neighbor + 1);
-                    newData.remainingNeighbors = neighbors.cardinality();
-
-                    stack.push (newData);
-
-                    if (newData.cardinality > largestCardinality) {
-                        largestClique.clear();
-                        largestClique.or(newClique);
-                        largestCardinality = newData.cardinality;
-                        largest.accumulate(largestCardinality);
-                    }
+                clique.set(neighbor);
+
+                // The parent's later candidates that are also neighbors are exactly the child's candidates
+                CliqueData newData = frame(frames, ++depth);
+                stats.depth(depth);
+                newData.node = neighbor;
+                newData.cardinality = currentData.cardinality + 1;
+                newData.neighbors.clear();
+                newData.neighbors.or(currentData.neighbors);
+                newData.neighbors.and(edges[neighbor]);
+                newData.neighbors.clear(0, neighbor + 1);
+                newData.nextNeighbor = newData.neighbors.nextSetBit(neighbor + 1);
+                newData.remainingNeighbors = newData.neighbors.cardinality();
+
+                if (newData.cardinality > largestCardinality) {
+                    largestClique.clear();
+                    largestClique.or(clique);
+                    largestCardinality = newData.cardinality;
+                    largest.accumulate(largestCardinality);
                 }
             }
-            else
-                stack.pop();
+            else {
+                if (currentData.nextNeighbor != -1)
+                    stats.prunedByBound += currentData.remainingNeighbors;
+                // The starting clique is not ours to take apart
+                if (depth > 0)
+                    clique.clear(currentData.node);
+                --depth;
+            }
         }
+        stats.rootFinished(System.nanoTime() - start);
         return largestClique;
     }
 
-    private BitSet findLargestCliqueStack(int node, LongAccumulator largest, ExecutorService executor) throws ExecutionException, InterruptedException {
+    /**
+     * @return the frame for depth, created with its neighbor set the first time this thread reaches that depth
+     */
+    private CliqueData frame(CliqueData[] frames, int depth) {
+        if (frames[depth] == null) {
+            frames[depth] = new CliqueData();
+            frames[depth].neighbors = new BitSet(edges.length);
+        }
+        return frames[depth];
+    }
+
+    /**
+     * Overwrites neighbors with the neighbors of node that have larger indexes than node.
+     */
+    private void laterNeighbors(int node, BitSet neighbors) {
+        neighbors.clear();
+        neighbors.or(edges[node]);
+        neighbors.clear(0, node + 1);
+    }
+
+    private int maxDegree() {
+        int max = 0;
+        for (int degree : degrees)
+            max = Math.max(max, degree);
+
+        return max;
+    }
+
+    private BitSet findLargestCliqueStack(int node, LegacyRun run, ExecutorService executor) throws ExecutionException, InterruptedException {
         final int NODES = edges.length;
         BitSet startingClique = new BitSet(NODES);
         startingClique.set(node);
@@ -505,9 +666,10 @@ public class Graph {
             BitSet newClique = addNode(startingClique, neighbor);
             if (newClique != null) {
                 int finalNeighbor = neighbor;
-                futures.add(executor.submit(() -> findLargestCliqueStackWorker(finalNeighbor, newClique, largest)));
+                futures.add(executor.submit(() -> findLargestCliqueStackWorker(finalNeighbor, newClique, run)));
             }
         }
+        run.workers.get().taskSplits += futures.size();
 
         for (Future<BitSet> future : futures) {
             BitSet clique = future.get();
@@ -518,14 +680,16 @@ public class Graph {
             }
         }
 
-        System.out.println("[Finished starting at node " + node  + " Best: " + largestCardinality + "]");
+        run.rootFinished(node, bitSetToArray(largestClique));
         return largestClique;
     }
 
 
-    private int findLargestClique(int node, BitSet currentClique, BitSet largestClique) {
+    private int findLargestClique(int node, BitSet currentClique, BitSet largestClique, WorkerStats stats) {
         int largestCardinality = largestClique.cardinality();
         int currentCardinality = currentClique.cardinality();
+        ++stats.nodesExpanded;
+        stats.depth(currentCardinality - 1);
 
         if (currentCardinality > largestCardinality) {
             largestClique.clear();
@@ -545,79 +709,29 @@ public class Graph {
         while (nextNeighbor != -1 && remainingNeighbors + currentCardinality > largestCardinality) {
             BitSet newClique = addNode(currentClique, nextNeighbor);
             if (newClique != null)
-                largestCardinality = findLargestClique(nextNeighbor, newClique, largestClique);
+                largestCardinality = findLargestClique(nextNeighbor, newClique, largestClique, stats);
 
             nextNeighbor = neighbors.nextSetBit(nextNeighbor + 1);
             --remainingNeighbors;
         }
+        if (nextNeighbor != -1)
+            stats.prunedByBound += remainingNeighbors;
 
         return largestCardinality;
     }
 
-    private BitSet findLargestCliqueStack(int node, LongAccumulator largest) {
-        final int NODES = edges.length;
-        BitSet startingClique = new BitSet(NODES);
+    private BitSet findLargestCliqueStack(int node, LegacyRun run) {
+        BitSet startingClique = new BitSet(edges.length);
         startingClique.set(node);
 
-        BitSet largestClique = (BitSet) startingClique.clone();
-        int largestCardinality = largestClique.cardinality();
-
-        Deque<CliqueData> stack = new ArrayDeque<>();
-
-        BitSet neighbors = (BitSet) edges[node].clone();
-        BitSet mask = new BitSet(edges.length);
-        mask.flip(0, node + 1); // Only look at neighbors after the current node
-        neighbors.andNot(mask);
-
-        CliqueData startingData = new CliqueData();
-        startingData.clique = startingClique;
-        startingData.cardinality = largestCardinality; // Actually the same as startingClique cardinality (1)
-        startingData.neighbors = neighbors;
-        startingData.nextNeighbor = neighbors.nextSetBit(node + 1);
-        startingData.remainingNeighbors = neighbors.cardinality();
-
-        stack.push(startingData);
-
-        while (!stack.isEmpty()) {
-            CliqueData currentData = stack.peek();
-            if (currentData.nextNeighbor != -1 && currentData.remainingNeighbors + currentData.cardinality > largest.get()) {
-                int neighbor = currentData.nextNeighbor;
-                currentData.nextNeighbor = currentData.neighbors.nextSetBit(neighbor + 1);
-                --currentData.remainingNeighbors;
-                BitSet newClique = addNode(currentData.clique, neighbor);
-                if (newClique != null) {
-                    neighbors = (BitSet) edges[neighbor].clone();
-                    mask = new BitSet(edges.length);
-                    mask.flip(0, neighbor + 1);
-                    neighbors.andNot(mask);
-
-                    CliqueData newData = new CliqueData();
-                    newData.clique = newClique;
-                    newData.cardinality = currentData.cardinality + 1;
-                    newData.neighbors = neighbors;
-                    newData.nextNeighbor = neighbors.nextSetBit(neighbor + 1);
-                    newData.remainingNeighbors = neighbors.cardinality();
-
-                    stack.push (newData);
-
-                    if (newData.cardinality > largestCardinality) {
-                        largestClique.clear();
-                        largestClique.or(newClique);
-                        largestCardinality = newData.cardinality;
-                        largest.accumulate(largestCardinality);
-                    }
-                }
-            }
-            else
-                stack.pop();
-        }
+        BitSet largestClique = findLargestCliqueStackWorker(node, startingClique, run);
 
-        System.out.println("[Finished starting at node " + node  + " Best: " + largestCardinality + "]");
+        run.rootFinished(node, bitSetToArray(largestClique));
         return largestClique;
     }
 
     private static class CliqueData {
-        public BitSet clique;
+        public int node;
         public int cardinality;
         public int nextNeighbor;
         public BitSet neighbors;
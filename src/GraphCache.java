@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary pre-parsed form of a graph so that repeated runs skip DIMACS parsing.
+ * Layout (little-endian):
+ * <pre>
+ *   int  magic ("FCLQ")
+ *   int  version
+ *   int  nodes
+ *   int  stride (words per row)
+ *   long edges
+ *   int  degrees[nodes], padded to a multiple of 8 bytes
+ *   long rows[nodes * stride]
+ * </pre>
+ * The rows are exactly the words of a {@link BitMatrix}, so loading is a single bulk copy out of the mapped file.
+ */
+public class GraphCache {
+    private static final int MAGIC = 0x514C4346; // "FCLQ" read as little-endian bytes
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final String EXTENSION = ".bin";
+
+    /**
+     * Converts each .clq file named on the command line into a cache file beside it.
+     */
+    public static void main(String[] args) throws IOException {
+        for (String name : args) {
+            Path source = Path.of(name);
+            Path cache = cachePath(source);
+            write(DimacsLoader.load(source), cache);
+            System.out.println(source + " -> " + cache);
+        }
+    }
+
+    /**
+     * Loads a DIMACS graph, using the cache file beside it when that is newer than the source and readable.
+     * Otherwise the source is parsed and the cache is (re)written for next time, so a truncated, corrupt or
+     * other-version cache file is replaced rather than failing every run.
+     */
+    public static BitMatrix load(Path source) throws IOException {
+        Path cache = cachePath(source);
+        if (Files.exists(cache) && Files.getLastModifiedTime(cache).compareTo(Files.getLastModifiedTime(source)) > 0) {
+            try {
+                return read(cache);
+            }
+            catch (IOException | IllegalArgumentException e) {
+                // Fall through and rebuild it from the source
+            }
+        }
+
+        BitMatrix matrix = DimacsLoader.load(source);
+        try {
+            write(matrix, cache);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            // A missing cache only costs time on the next run, so a read-only data directory or a graph too large
+            // for the format is not an error
+        }
+        return matrix;
+    }
+
+    public static Path cachePath(Path source) {
+        return source.resolveSibling(source.getFileName() + EXTENSION);
+    }
+
+    public static BitMatrix read(Path cache) throws IOException {
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Not a graph cache file: " + cache);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IllegalArgumentException("Not a graph cache file: " + cache);
+
+            int nodes = buffer.getInt(8);
+            int stride = buffer.getInt(12);
+            long edges = buffer.getLong(16);
+            if (stride != BitMatrix.wordsFor(nodes) || size != fileSize(nodes, stride))
+                throw new IllegalArgumentException("Corrupt graph cache file: " + cache);
+
+            int[] degrees = new int[nodes];
+            buffer.position(HEADER_BYTES);
+            buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(degrees);
+
+            long[] words = new long[nodes * stride];
+            buffer.position(rowsOffset(nodes));
+            buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words);
+
+            return new BitMatrix(nodes, words, degrees, edges);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the file would be over 2 GB, which one mapping cannot cover
+     */
+    public static void write(BitMatrix matrix, Path cache) throws IOException {
+        final int NODES = matrix.nodes();
+        final int STRIDE = matrix.stride();
+        if (fileSize(NODES, STRIDE) > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Graph with " + NODES + " nodes is too large for a cache file!");
+
+        // Write beside the target and move into place so readers never see a partial file
+        Path temporary = cache.resolveSibling(cache.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(NODES, STRIDE));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(NODES).putInt(STRIDE).putLong(matrix.edges());
+
+            ByteBuffer degrees = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            degrees.asIntBuffer().put(matrix.degrees());
+
+            buffer.position(rowsOffset(NODES));
+            buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(matrix.words());
+            buffer.force();
+        }
+        Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int rowsOffset(int nodes) {
+        return HEADER_BYTES + ((4 * nodes + 7) & ~7);
+    }
+
+    private static long fileSize(int nodes, int stride) {
+        return rowsOffset(nodes) + 8L * nodes * stride;
+    }
+}
@@ -6,8 +6,13 @@ import java.util.concurrent.atomic.LongAccumulator;
 public class GraphWithArrays {
 
     private boolean[][] edges;
-    private int totalEdges;
+    private long totalEdges;
     private int[] degrees;
+    // Search frames by depth for each thread running the stack search, as in Graph. A task only waits on
+    // others before it has touched the frames, so one run while its thread helps with a wait never finds them
+    // in use. Frame 0 holds the root's later neighbors, at most max degree of them, and every deeper frame uses
+    // up one candidate of its parent, so the depth never exceeds max degree and max degree + 1 frames suffice
+    private final ThreadLocal<CliqueData[]> frames = ThreadLocal.withInitial(() -> new CliqueData[maxDegree() + 1]);
 
     public GraphWithArrays(Scanner in) {
         int nodes = 0;
@@ -40,16 +45,48 @@ public class GraphWithArrays {
         }
     }
 
+    public GraphWithArrays(BitMatrix matrix) {
+        final int NODES = matrix.nodes();
+        edges = new boolean[NODES][NODES];
+        degrees = new int[NODES];
+        long[] row = new long[matrix.stride()];
+        for (int i = 0; i < NODES; ++i) {
+            matrix.copyRow(i, row, 0);
+            for (int j = matrix.nextSetBit(row, 0, 0); j >= 0; j = matrix.nextSetBit(row, 0, j + 1))
+                edges[i][j] = true;
+            degrees[i] = matrix.degree(i);
+        }
+        totalEdges = matrix.edges();
+    }
+
     public int nodes() {
         return edges.length;
     }
 
-    public int edges() { return totalEdges; }
+    public long edges() { return totalEdges; }
 
     public boolean hasEdge(int from, int to) {
         return edges[from][to];
     }
 
+    public BitMatrix toBitMatrix() {
+        final int NODES = edges.length;
+        BitMatrix matrix = new BitMatrix(NODES);
+        for (int i = 0; i < NODES - 1; ++i)
+            for (int j = i + 1; j < NODES; ++j)
+                if (edges[i][j])
+                    matrix.addEdge(i, j);
+
+        return matrix;
+    }
+
+    /**
+     * @return copy of this graph in which node i is original node order[i]
+     */
+    public GraphWithArrays renumber(int[] order) {
+        return new GraphWithArrays(toBitMatrix().permute(order));
+    }
+
     public int cliqueUpperBound() {
         int[] degreesCopy = degrees.clone();
         Arrays.sort(degreesCopy);
@@ -75,7 +112,7 @@ public class GraphWithArrays {
         return size;
     }
 
-    private static int cardinality(boolean[] set, int starting) {
+    static int cardinality(boolean[] set, int starting) {
         int size = 0;
         for (int i = starting; i < set.length; ++i) {
             if (set[i])
@@ -158,16 +195,31 @@ public class GraphWithArrays {
     }
 
 
+    /** Searches the graph renumbered into {@link VertexOrdering#degeneracy smallest-last} order. */
     public int[] findLargestCliqueStackThreaded() throws InterruptedException, ExecutionException {
-        ExecutorService executor = Executors.newWorkStealingPool();
+        return findLargestCliqueStackThreaded(new SolveOptions());
+    }
+
+    /**
+     * Same as {@link #findLargestCliqueStackThreaded()} on options.threads() threads. Only the statistics,
+     * progress and root line options are used; the search always runs to the end.
+     */
+    public int[] findLargestCliqueStackThreaded(SolveOptions options) throws InterruptedException, ExecutionException {
+        int[] order = VertexOrdering.degeneracy(toBitMatrix());
+        try (LegacyRun run = new LegacyRun(options, order, 0)) {
+            return VertexOrdering.restore(renumber(order).findLargestCliqueStackThreadedInOrder(run, options.threads()), order);
+        }
+    }
+
+    private int[] findLargestCliqueStackThreadedInOrder(LegacyRun run, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newWorkStealingPool(threads);
 
-        LongAccumulator largest = new LongAccumulator(Long::max, 0);
         final int NODES = edges.length;
         List<Callable<boolean[]>> callableTasks = new ArrayList<>();
         // Go backwards since high-numbered nodes finish faster
         for (int i = NODES - 1; i >= 0; --i) {
             final int finalI = i;
-            callableTasks.add(() -> findLargestCliqueStack(finalI, largest));
+            callableTasks.add(() -> findLargestCliqueStack(finalI, run));
         }
 
         List<Future<boolean[]>> futures = executor.invokeAll(callableTasks);
@@ -188,10 +240,26 @@ public class GraphWithArrays {
     }
 
 
+    /** Searches the graph renumbered into {@link VertexOrdering#degeneracy smallest-last} order. */
     public int[] newFindLargestCliqueStackThreaded() throws InterruptedException, ExecutionException {
-        ExecutorService executor = Executors.newWorkStealingPool();
+        return newFindLargestCliqueStackThreaded(new SolveOptions());
+    }
+
+    /**
+     * Same as {@link #newFindLargestCliqueStackThreaded()} on options.threads() threads. Only the statistics,
+     * progress and root line options are used; the search always runs to the end.
+     */
+    public int[] newFindLargestCliqueStackThreaded(SolveOptions options) throws InterruptedException, ExecutionException {
+        int[] order = VertexOrdering.degeneracy(toBitMatrix());
+        // A non-empty graph will always have a size at least 1
+        try (LegacyRun run = new LegacyRun(options, order, 1)) {
+            return VertexOrdering.restore(renumber(order).newFindLargestCliqueStackThreadedInOrder(run, options.threads()), order);
+        }
+    }
+
+    private int[] newFindLargestCliqueStackThreadedInOrder(LegacyRun run, int threads) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newWorkStealingPool(threads);
 
-        LongAccumulator largest = new LongAccumulator(Long::max, 1); // A non-empty graph will always have a size at least 1
         final int NODES = edges.length;
         List<Future<boolean[]>> futures = new ArrayList<>();
 
@@ -201,9 +269,9 @@ public class GraphWithArrays {
         for (int i = NODES - 1; i >= 0; --i) {
             final int finalI = i;
             if (i >= NODES - PREBRANCHING )
-                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, largest)));
+                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, run)));
             else
-                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, largest, executor)));
+                futures.add(executor.submit(() -> findLargestCliqueStack(finalI, run, executor)));
         }
 
         int largestCardinality = 0;
@@ -222,65 +290,117 @@ public class GraphWithArrays {
         return booleansToArray(largestClique);
     }
 
-    private boolean[] findLargestCliqueStackWorker(int node, boolean[] startingClique, LongAccumulator largest) {
+    /**
+     * Depth-first search below startingClique, whose last node added is node. The clique is kept in one
+     * array that is updated in place, and each depth has a frame that belongs to the pool thread and
+     * outlives the task, so a task allocates nothing beyond its two cliques. Each frame holds the candidates that are adjacent to the whole clique,
+     * so a child's candidates come from one pass over its parent's instead of re-checking the clique.
+     */
+    private boolean[] findLargestCliqueStackWorker(int node, boolean[] startingClique, LegacyRun run) {
         final int NODES = edges.length;
+        long start = System.nanoTime();
+        LongAccumulator largest = run.largest;
+        WorkerStats stats = run.workers.get();
 
+        boolean[] clique = startingClique.clone();
         boolean[] largestClique = startingClique.clone();
         int largestCardinality = cardinality(largestClique);
 
-        Deque<GraphWithArrays.CliqueData> stack = new ArrayDeque<>();
+        // Only look at neighbors with larger indexes than the current node
+        // (To avoid repetition)
+        GraphWithArrays.CliqueData[] frames = this.frames.get();
+        int depth = 0;
 
+        GraphWithArrays.CliqueData startingData = frame(frames, depth);
         boolean[] neighbors = edges[node];
-        int next = node + 1;
-        while (next < NODES && !neighbors[next])
-            ++next;
+        int startingCount = 0;
+        for (int i = node + 1; i < NODES; ++i)
+            if (neighbors[i] && isConnectedToAll(clique, i))
+                startingData.candidates[startingCount++] = i;
 
-        GraphWithArrays.CliqueData startingData = new GraphWithArrays.CliqueData();
-        startingData.clique = startingClique;
+        startingData.node = node;
         startingData.cardinality = largestCardinality; // Actually the same as startingClique cardinality
-        startingData.neighbors = neighbors;
-        startingData.nextNeighbor = next;
-        startingData.remainingNeighbors = cardinality(neighbors, next);
-
-        stack.push(startingData);
-
-        while (!stack.isEmpty()) {
-            GraphWithArrays.CliqueData currentData = stack.peek();
-            if (currentData.remainingNeighbors + currentData.cardinality > largest.get()) {
-                --currentData.remainingNeighbors;
-                int neighbor = currentData.nextNeighbor;
-                boolean[] newClique = addNode(currentData.clique, neighbor);
-                if (newClique != null) {
-                    neighbors = edges[neighbor];
-                    GraphWithArrays.CliqueData newData = new GraphWithArrays.CliqueData();
-                    newData.clique = newClique;
-                    newData.cardinality = currentData.cardinality + 1;
-                    newData.neighbors = neighbors;
-                    newData.nextNeighbor = neighbor + 1;
-                    while (newData.nextNeighbor < NODES && !neighbors[newData.nextNeighbor])
-                        ++newData.nextNeighbor;
-                    newData.remainingNeighbors = cardinality(neighbors, newData.nextNeighbor);
-
-                    stack.push(newData);
-
-                    if (newData.cardinality > largestCardinality) {
-                        System.arraycopy(newClique, 0, largestClique, 0, NODES);
-                        largestCardinality = newData.cardinality;
-                        largest.accumulate(largestCardinality);
-                    }
+        startingData.count = startingCount;
+        startingData.nextCandidate = 0;
+
+        while (depth >= 0) {
+            GraphWithArrays.CliqueData currentData = frames[depth];
+            if (currentData.nextCandidate < currentData.count && currentData.count - currentData.nextCandidate + currentData.cardinality > largest.get()) {
+                int neighbor = currentData.candidates[currentData.nextCandidate++];
+                clique[neighbor] = true;
+                ++stats.nodesExpanded;
+
+                GraphWithArrays.CliqueData newData = frame(frames, ++depth);
+                stats.depth(depth);
+                newData.node = neighbor;
+                newData.cardinality = currentData.cardinality + 1;
+                newData.count = intersect(currentData.candidates, currentData.nextCandidate, currentData.count, edges[neighbor], newData.candidates);
+                newData.nextCandidate = 0;
+
+                if (newData.cardinality > largestCardinality) {
+                    System.arraycopy(clique, 0, largestClique, 0, NODES);
+                    largestCardinality = newData.cardinality;
+                    largest.accumulate(largestCardinality);
                 }
-
-                do {
-                    ++currentData.nextNeighbor;
-                } while (currentData.nextNeighbor < NODES && !currentData.neighbors[currentData.nextNeighbor]);
             }
-            else
-                stack.pop();
+            else {
+                stats.prunedByBound += currentData.count - currentData.nextCandidate;
+                // The starting clique is not ours to take apart
+                if (depth > 0)
+                    clique[currentData.node] = false;
+                --depth;
+            }
         }
+        stats.rootFinished(System.nanoTime() - start);
         return largestClique;
     }
 
-    private boolean[] findLargestCliqueStack(int node, LongAccumulator largest, ExecutorService executor) throws ExecutionException, InterruptedException {
+    /**
+     * @return the frame for depth, created with room for max degree candidates the first time this thread reaches that depth
+     */
+    private GraphWithArrays.CliqueData frame(GraphWithArrays.CliqueData[] frames, int depth) {
+        if (frames[depth] == null) {
+            frames[depth] = new GraphWithArrays.CliqueData();
+            frames[depth].candidates = new int[maxDegree()];
+        }
+        return frames[depth];
+    }
+
+    private int maxDegree() {
+        int max = 0;
+        for (int degree : degrees)
+            max = Math.max(max, degree);
+
+        return max;
+    }
+
+    /**
+     * Copies the candidates in [from, to) that are neighbors into result.
+     * @return number of candidates copied
+     */
+    private static int intersect(int[] candidates, int from, int to, boolean[] neighbors, int[] result) {
+        int count = 0;
+        for (int i = from; i < to; ++i)
+            if (neighbors[candidates[i]])
+                result[count++] = candidates[i];
+
+        return count;
+    }
+
+    private boolean isConnectedToAll(boolean[] clique, int node) {
+        boolean[] nodeEdges = edges[node];
+
+        for (int i = 0; i < nodeEdges.length; ++i) {
+            if (clique[i]) {
+                if (!nodeEdges[i])
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean[] findLargestCliqueStack(int node, LegacyRun run, ExecutorService executor) throws ExecutionException, InterruptedException {
         final int NODES = edges.length;
         boolean[] startingClique = new boolean[NODES];
         startingClique[node] = true;
@@ -299,12 +419,13 @@ public class GraphWithArrays {
                 boolean[] newClique = addNode(startingClique, neighbor);
                 if (newClique != null) {
                     int finalNeighbor = neighbor;
-                    futures.add(executor.submit(() -> findLargestCliqueStackWorker(finalNeighbor, newClique, largest)));
+                    futures.add(executor.submit(() -> findLargestCliqueStackWorker(finalNeighbor, newClique, run)));
                 }
             }
 
             ++neighbor;
         }
+        run.workers.get().taskSplits += futures.size();
 
         for (Future<boolean[]> future : futures) {
             boolean[] clique = future.get();
@@ -315,14 +436,40 @@ public class GraphWithArrays {
             }
         }
 
-        System.out.println("[Finished starting at node " + node  + " Best: " + largestCardinality + "]");
+        run.rootFinished(node, booleansToArray(largestClique));
         return largestClique;
     }
 
+    /**
+     * Shrinks the graph to the k-core at a greedy lower bound, renumbered in smallest-last order
+     * (see {@link Reduction}), and searches only for cliques that beat that bound.
+     * The clique is mapped back to the original ids.
+     */
     public int[] findLargestCliqueThreaded() throws ExecutionException, InterruptedException {
-        ExecutorService executor = Executors.newWorkStealingPool();
+        return findLargestCliqueThreaded(new SolveOptions());
+    }
+
+    /**
+     * Same as {@link #findLargestCliqueThreaded()} on options.threads() threads. Only the statistics,
+     * progress and root line options are used; the search always runs to the end.
+     */
+    public int[] findLargestCliqueThreaded(SolveOptions options) throws ExecutionException, InterruptedException {
+        Reduction reduction = new Reduction(toBitMatrix());
+        if (reduction.graph().nodes() == 0)
+            return reduction.clique();
+
+        GraphWithArrays reduced = new GraphWithArrays(reduction.graph());
+        // A non-empty graph will always have a size at least 1
+        try (LegacyRun run = new LegacyRun(options, reduction.kept(), Math.max(1, reduction.lowerBound()))) {
+            if (run.incumbent.offer(reduction.clique()))
+                ++run.workers.get().incumbentUpdates;
+            return reduction.restore(reduced.findLargestCliqueThreadedInOrder(run, options.threads()));
+        }
+    }
+
+    private int[] findLargestCliqueThreadedInOrder(LegacyRun run, int threads) throws ExecutionException, InterruptedException {
+        ExecutorService executor = Executors.newWorkStealingPool(threads);
 
-            LongAccumulator largest = new LongAccumulator(Long::max, 1); // A non-empty graph will always have a size at least 1
             final int NODES = edges.length;
             List<Future<boolean[]>> futures = new ArrayList<>();
 
@@ -332,9 +479,9 @@ public class GraphWithArrays {
             for (int i = NODES - 1; i >= 0; --i) {
                 final int finalI = i;
                 if (i >= NODES - PREBRANCHING)
-                    futures.add(executor.submit(() -> findLargestCliqueThreaded(finalI, largest)));
+                    futures.add(executor.submit(() -> findLargestCliqueThreaded(finalI, run)));
                 else
-                    futures.add(executor.submit(() -> findLargestCliqueThreaded(finalI, largest, executor)));
+                    futures.add(executor.submit(() -> findLargestCliqueThreaded(finalI, run, executor)));
             }
 
             int largestCardinality = 0;
@@ -355,28 +502,21 @@ public class GraphWithArrays {
     }
 
 
-    private boolean[] findLargestCliqueThreaded(int node, LongAccumulator largest) {
+    private boolean[] findLargestCliqueThreaded(int node, LegacyRun run) {
         final int NODES = edges.length;
         boolean[] clique = new boolean[NODES];
         clique[node] = true;
         boolean[] largestClique = clique.clone();
-        boolean[] neighbors = edges[node];
         int[] largestCardinality = {1};
 
-        for (int i = node + 1; i < NODES; ++i) {
-            if (neighbors[i]) {
-                clique[i] = true;
-                findLargestCliqueThreaded(i, clique, 1, largestClique, largestCardinality, largest);
-                clique[i] = false;
-            }
-        }
+        findLargestCliqueThreaded(node, clique, 1, largestClique, largestCardinality, run);
 
-        System.out.println("[Finished starting at node " + node  + " Best: " + largestCardinality + "]");
+        run.rootFinished(node, booleansToArray(largestClique));
 
         return largestClique;
     }
 
-    private boolean[] findLargestCliqueThreaded(int node, LongAccumulator largest, ExecutorService executor) throws ExecutionException, InterruptedException {
+    private boolean[] findLargestCliqueThreaded(int node, LegacyRun run, ExecutorService executor) throws ExecutionException, InterruptedException {
         final int NODES = edges.length;
         boolean[] clique = new boolean[NODES];
         clique[node] = true;
@@ -391,9 +531,10 @@ public class GraphWithArrays {
                 int[] largestCardinality =  {1};
                 currentClique[i] = true;
                 int finalI = i;
-                futures.add(executor.submit(() -> findLargestCliqueThreaded(finalI, currentClique, 1, largestClique, largestCardinality, largest)));
+                futures.add(executor.submit(() -> findLargestCliqueThreaded(finalI, currentClique, 2, largestClique, largestCardinality, run)));
             }
         }
+        run.workers.get().taskSplits += futures.size();
 
         int largestCardinality = 0;
         boolean[] largestClique = null;
@@ -409,19 +550,90 @@ public class GraphWithArrays {
             }
         }
 
-        System.out.println("[Finished starting at node " + node  + " Best: " + largestCardinality + "]");
+        if (largestClique == null) {
+            largestClique = new boolean[NODES];
+            largestClique[node] = true;
+        }
+
+        run.rootFinished(node, booleansToArray(largestClique));
         return largestClique;
     }
 
-    private boolean[]  findLargestCliqueThreaded(int node, boolean[] clique, int cardinality, boolean[] largestClique, int[] largestCardinality, LongAccumulator largest) {
+    /**
+     * Exact search in the style of MCQ: the candidate set at every node is greedily colored,
+     * and the number of colors gives the bound instead of the number of remaining neighbors.
+     * Runs on the packed {@link BitMatrix} form of this graph.
+     * @return nodes in a maximum clique
+     */
+    public int[] findLargestCliqueColoring() throws ExecutionException, InterruptedException {
+        return new ColoringSearch(toBitMatrix()).findLargestClique();
+    }
+
+    /**
+     * Same as {@link #findLargestCliqueColoring()}, but always returns the first maximum clique in search
+     * order and prints progress in root order, so repeated runs give identical output.
+     * @return nodes in a maximum clique
+     */
+    public int[] findLargestCliqueColoringDeterministic() throws ExecutionException, InterruptedException {
+        return new ColoringSearch(toBitMatrix(), true).findLargestClique();
+    }
+
+    /**
+     * Anytime form of {@link #findLargestCliqueColoring()}: stops at the time limit or on cancellation
+     * with the best clique found so far, and reports each improvement to the listener as it is found.
+     */
+    public SolveResult solve(SolveOptions options) throws ExecutionException, InterruptedException {
+        return new ColoringSearch(toBitMatrix()).solve(options);
+    }
+
+    /**
+     * Same as {@link #solve(SolveOptions)}, with the randomized heuristic from {@link Main} running alongside
+     * and sharing the incumbent.
+     */
+    public SolveResult solvePortfolio(SolveOptions options) throws ExecutionException, InterruptedException {
+        return new Portfolio(toBitMatrix()).solve(options);
+    }
+
+    /**
+     * Same bound as {@link #findLargestCliqueColoring()}, but subtrees are split off on demand at any depth
+     * on a ForkJoinPool rather than only at the roots.
+     * @return nodes in a maximum clique
+     */
+    public int[] findLargestCliqueForkJoin() {
+        return new ForkJoinSearch(toBitMatrix()).findLargestClique();
+    }
+
+    /**
+     * Searches below clique, whose last node added is node. The candidates at each depth are the nodes
+     * adjacent to the whole clique, so no candidate is ever re-validated and each child's candidates
+     * come from one pass over its parent's. Candidate arrays are created the first time a depth is reached.
+     */
+    private boolean[] findLargestCliqueThreaded(int node, boolean[] clique, int cardinality, boolean[] largestClique, int[] largestCardinality, LegacyRun run) {
         final int NODES = edges.length;
+        long start = System.nanoTime();
+        WorkerStats stats = run.workers.get();
+
+        // Only look at neighbors with larger indexes than the current node
+        // (To avoid repetition)
         boolean[] neighbors = edges[node];
-        for (int j = node - 1; j >= 0; --j) {
-            if (clique[j] && !neighbors[j])
-                return null;
-        }
+        int[] startingCandidates = new int[NODES - node];
+        int startingCount = 0;
+        for (int i = node + 1; i < NODES; ++i)
+            if (neighbors[i] && isConnectedToAll(clique, i))
+                startingCandidates[startingCount++] = i;
+
+        int[][] candidates = new int[startingCount + 1][];
+        candidates[0] = startingCandidates;
+        findLargestCliqueThreaded(candidates, startingCount, 0, clique, cardinality, largestClique, largestCardinality, run.largest, stats);
 
-        ++cardinality; // Yuck
+        stats.rootFinished(System.nanoTime() - start);
+        return largestClique;
+    }
+
+    private void findLargestCliqueThreaded(int[][] candidates, int count, int depth, boolean[] clique, int cardinality, boolean[] largestClique, int[] largestCardinality, LongAccumulator largest, WorkerStats stats) {
+        final int NODES = edges.length;
+        ++stats.nodesExpanded;
+        stats.depth(depth);
 
         if (cardinality > largestCardinality[0]) {
             largestCardinality[0] = cardinality;
@@ -429,23 +641,27 @@ public class GraphWithArrays {
             largest.accumulate(cardinality);
         }
 
-        int remainingNeighbors = 0;
-        for (int i = node + 1; i < NODES; ++i)
-            if (neighbors[i])
-                ++remainingNeighbors;
+        if (count == 0)
+            return;
 
-        for (int i = node + 1; i < NODES; ++i) {
-            if (neighbors[i] ) {
-                if (remainingNeighbors + cardinality > largest.get()) {
-                    clique[i] = true;
-                    findLargestCliqueThreaded(i, clique, cardinality, largestClique, largestCardinality, largest);
-                    clique[i] = false;
-                }
-                --remainingNeighbors;
+        int[] current = candidates[depth];
+        if (candidates[depth + 1] == null)
+            candidates[depth + 1] = new int[candidates[0].length];
+        int[] next = candidates[depth + 1];
+
+        for (int i = 0; i < count; ++i) {
+            // Every remaining candidate could still join, which is the best this branch can do
+            if (count - i + cardinality <= largest.get()) {
+                stats.prunedByBound += count - i;
+                return;
             }
-        }
 
-        return largestClique;
+            int node = current[i];
+            int nextCount = intersect(current, i + 1, count, edges[node], next);
+            clique[node] = true;
+            findLargestCliqueThreaded(candidates, nextCount, depth + 1, clique, cardinality + 1, largestClique, largestCardinality, largest, stats);
+            clique[node] = false;
+        }
     }
 
     private int findLargestCliqueThreadedWorker(int node, boolean[] currentClique, int currentSize, boolean[] largestClique, int largestSize, LongAccumulator globalLargest) {
@@ -482,74 +698,23 @@ public class GraphWithArrays {
         return largestSize;
     }
 
-    private boolean[] findLargestCliqueStack(int node, LongAccumulator largest) {
+    private boolean[] findLargestCliqueStack(int node, LegacyRun run) {
         final int NODES = edges.length;
         boolean[] startingClique = new boolean[NODES];
         startingClique[node] = true;
 
-        boolean[] largestClique = startingClique.clone();
-        int largestCardinality = 1;
-
-        Deque<GraphWithArrays.CliqueData> stack = new ArrayDeque<>();
-
-        boolean[] neighbors = edges[node];
-        int nextNeighbor = node + 1;
-        while (nextNeighbor < NODES && !neighbors[nextNeighbor])
-            ++nextNeighbor;
-
-        GraphWithArrays.CliqueData startingData = new GraphWithArrays.CliqueData();
-        startingData.clique = startingClique;
-        startingData.cardinality = largestCardinality; // Actually the same as startingClique cardinality (1)
-        startingData.neighbors = neighbors;
-        startingData.nextNeighbor = nextNeighbor;
-        startingData.remainingNeighbors = cardinality(neighbors, nextNeighbor);
-
-        stack.push(startingData);
-
-        while (!stack.isEmpty()) {
-            GraphWithArrays.CliqueData currentData = stack.peek();
-            if (currentData.remainingNeighbors + currentData.cardinality > largest.get()) {
-                --currentData.remainingNeighbors;
-                int neighbor = currentData.nextNeighbor;
-                boolean[] newClique = addNode(currentData.clique, neighbor);
-                if (newClique != null) {
-                    neighbors = edges[neighbor];
-                    GraphWithArrays.CliqueData newData = new GraphWithArrays.CliqueData();
-                    newData.clique = newClique;
-                    newData.cardinality = currentData.cardinality + 1;
-                    newData.neighbors = neighbors;
-                    newData.nextNeighbor = neighbor + 1;
-                    while (newData.nextNeighbor < NODES && !neighbors[newData.nextNeighbor])
-                        ++newData.nextNeighbor;
-                    newData.remainingNeighbors = cardinality(neighbors, newData.nextNeighbor);
-
-                    stack.push(newData);
-
-                    if (newData.cardinality > largestCardinality) {
-                        System.arraycopy(newClique, 0, largestClique, 0, NODES);
-                        largestCardinality = newData.cardinality;
-                        largest.accumulate(largestCardinality);
-                    }
-                }
-
-                do {
-                    ++currentData.nextNeighbor;
-                } while (currentData.nextNeighbor < NODES && !currentData.neighbors[currentData.nextNeighbor]);
-            }
-            else
-                stack.pop();
-        }
+        boolean[] largestClique = findLargestCliqueStackWorker(node, startingClique, run);
 
-        System.out.println("[Finished starting at node " + node  + " Best: " + largestCardinality + "]");
+        run.rootFinished(node, booleansToArray(largestClique));
         return largestClique;
     }
 
     private static class CliqueData {
-        public boolean[] clique;
+        public int node;
         public int cardinality;
-        public int nextNeighbor;
-        public boolean[] neighbors;
-        public int remainingNeighbors;
+        public int[] candidates;
+        public int count;
+        public int nextCandidate;
     }
 
 }
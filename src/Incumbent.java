@@ -0,0 +1,41 @@
+/**
+ * The best clique a solve has found so far, in original ids, shared by every thread working on it.
+ * Searches read {@link #size()} freely; {@link #offer(int[])} is only called on an improvement, so
+ * the lock is rarely taken.
+ */
+public class Incumbent {
+    private final long start;
+    private final IncumbentListener listener;
+    private volatile int[] clique = new int[0];
+
+    public Incumbent(IncumbentListener listener) {
+        this.listener = listener;
+        start = System.nanoTime();
+    }
+
+    public int size() {
+        return clique.length;
+    }
+
+    public int[] clique() {
+        return clique;
+    }
+
+    /**
+     * Replaces the incumbent if clique is larger, and tells the listener.
+     * @return whether clique became the incumbent
+     */
+    public synchronized boolean offer(int[] clique) {
+        if (clique.length <= this.clique.length)
+            return false;
+
+        this.clique = clique;
+        if (listener != null)
+            listener.improved(clique, System.nanoTime() - start);
+        return true;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Called each time a solve finds a clique larger than any before it.
+ */
+@FunctionalInterface
+public interface IncumbentListener {
+    /**
+     * @param clique nodes of the new best clique, in original ids; must not be modified
+     * @param elapsedNanos time since the solve started
+     */
+    void improved(int[] clique, long elapsedNanos);
+}
@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs one {@link CliqueHeuristic} per thread, each an island with its own clique pool and its own random
+ * stream, split from one seed. Every few rounds the islands meet at a barrier and each takes in the largest
+ * cliques of the island before it in a ring, so good cliques spread while the pools stay different.
+ * <p>
+ * Each island writes its migrants only to its own slot of a board, which is double-buffered by migration so
+ * a slow reader never sees a slot being rewritten; the barrier is the only synchronization. Improvements go
+ * straight to the shared {@link Incumbent}. Because the islands only meet at fixed rounds, a run with a fixed
+ * seed and thread count builds the same cliques every time, unless it is stopped early.
+ * <p>
+ * Each island counts the combinations and extensions it tries as nodes expanded in a {@link WorkerStats} of
+ * its own, so progress lines and the result's statistics cover this engine like the others.
+ */
+public class IslandHeuristic {
+    // Islands trade cliques once per this many rounds
+    private static final int MIGRATION_ROUNDS = 4;
+    // How many of its largest cliques an island sends each time
+    private static final int MIGRANTS = 4;
+    // How often to check the time limit and cancellation while the islands run
+    private static final long POLL_MILLIS = 10;
+
+    private final Graph graph;
+
+    public IslandHeuristic(BitMatrix graph) {
+        this(new Graph(graph));
+    }
+
+    public IslandHeuristic(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Runs options.threads() islands until every one has gone a long stretch without a larger clique, a clique
+     * of the target size is found, the time limit passes or the solve is cancelled. The result is never proven.
+     */
+    public SolveResult solve(SolveOptions options) throws ExecutionException, InterruptedException {
+        final int ISLANDS = options.threads();
+        Incumbent incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+        SearchStats stats = options.stats() != null ? options.stats() : new SearchStats();
+        long solveStart = System.nanoTime();
+        long timeLimitNanos = options.timeLimitNanos();
+        int target = options.target() != null ? options.target() : Integer.MAX_VALUE;
+        Cancellation stop = new Cancellation();
+
+        SplittableRandom seeds = options.seed() != null ? new SplittableRandom(options.seed()) : new SplittableRandom();
+        // The cap on remembered cliques is shared out so that more islands do not take more memory
+        long dedupeBytes = Math.max(CliqueHeuristic.DEDUPE_BYTES / ISLANDS, 1 << 20);
+        int[] order = CliqueHeuristic.defaultOrder(graph);
+        CliqueHeuristic[] islands = new CliqueHeuristic[ISLANDS];
+        WorkerStats[] workers = new WorkerStats[ISLANDS];
+        for (int i = 0; i < ISLANDS; ++i) {
+            workers[i] = stats.newWorker();
+            islands[i] = new CliqueHeuristic(graph, incumbent, seeds.split(), dedupeBytes, order, workers[i]);
+        }
+
+        final int STRIDE = graph.stride();
+        long[][][] board = new long[2][ISLANDS][MIGRANTS * STRIDE];
+        int[][] counts = new int[2][ISLANDS];
+        Phaser migrations = new Phaser(ISLANDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(ISLANDS);
+        ProgressReporter reporter = options.progressInterval() == null ? null
+                : new ProgressReporter(stats, incumbent, options.progressInterval(), System.out);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ISLANDS; ++i) {
+            final int ISLAND = i;
+            futures.add(executor.submit(() -> {
+                CliqueHeuristic island = islands[ISLAND];
+                long start = System.nanoTime();
+                try {
+                    boolean searching = island.seed(stop);
+                    for (int round = 1; searching; ++round) {
+                        searching = island.round(stop);
+                        if (searching && round % MIGRATION_ROUNDS == 0) {
+                            int buffer = (round / MIGRATION_ROUNDS) & 1;
+                            counts[buffer][ISLAND] = island.emigrants(board[buffer][ISLAND], 0, MIGRANTS);
+                            migrations.arriveAndAwaitAdvance();
+                            int from = (ISLAND + ISLANDS - 1) % ISLANDS;
+                            island.immigrate(board[buffer][from], 0, counts[buffer][from]);
+                        }
+                    }
+                }
+                finally {
+                    // The others no longer wait for this island at their barriers
+                    migrations.arriveAndDeregister();
+                    workers[ISLAND].rootFinished(System.nanoTime() - start);
+                }
+            }));
+        }
+
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS))
+                if (options.cancellation().isCancelled() || System.nanoTime() - solveStart >= timeLimitNanos || incumbent.size() >= target)
+                    stop.cancel();
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally {
+            if (reporter != null)
+                reporter.close();
+        }
+
+        // Ties go to the lowest island, so a seeded run also returns the same clique every time
+        CliqueHeuristic best = islands[0];
+        for (CliqueHeuristic island : islands)
+            if (island.largest() > best.largest())
+                best = island;
+        int[] clique = best.largestClique();
+        // A shared incumbent may hold a larger clique from another solver
+        if (incumbent.size() > clique.length)
+            clique = incumbent.clique();
+        long moves = 0;
+        for (WorkerStats worker : workers)
+            moves += worker.nodesExpanded();
+        return new SolveResult(clique, false, moves, incumbent.elapsedNanos(), stats);
+    }
+}
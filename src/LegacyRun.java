@@ -0,0 +1,44 @@
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * State shared by the threads of one search by {@link Graph} or {@link GraphWithArrays}: the bound, one set of
+ * counters per thread, and the incumbent, which each root offers its best clique to as it finishes, so progress
+ * lines and listeners see the best so far.
+ */
+class LegacyRun implements AutoCloseable {
+    final LongAccumulator largest;
+    final Incumbent incumbent;
+    final SearchStats stats;
+    final ThreadLocal<WorkerStats> workers;
+    final boolean printRoots;
+    // Original id of each node of the graph searched, or null if it is not renumbered
+    final int[] ids;
+    final ProgressReporter reporter;
+
+    LegacyRun(SolveOptions options, int[] ids, int lowerBound) {
+        largest = new LongAccumulator(Long::max, lowerBound);
+        incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+        stats = options.stats() != null ? options.stats() : new SearchStats();
+        workers = ThreadLocal.withInitial(stats::newWorker);
+        printRoots = options.printRoots();
+        this.ids = ids;
+        reporter = options.progressInterval() == null ? null
+                : new ProgressReporter(stats, incumbent, options.progressInterval(), System.out);
+    }
+
+    /**
+     * Offers the best clique found from root, as searched node ids, and prints its line if asked for.
+     */
+    void rootFinished(int root, int[] clique) {
+        if (clique.length > incumbent.size() && incumbent.offer(ids == null ? clique : VertexOrdering.restore(clique, ids)))
+            ++workers.get().incumbentUpdates;
+        if (printRoots)
+            System.out.println("[Finished starting at node " + (ids == null ? root : ids[root]) + " Best: " + clique.length + "]");
+    }
+
+    @Override
+    public void close() {
+        if (reporter != null)
+            reporter.close();
+    }
+}
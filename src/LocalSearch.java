@@ -0,0 +1,371 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Dynamic local search for large cliques (DLS-MC, Pullan and Hoos 2006). A single current clique is grown by
+ * adding nodes adjacent to all of it, then moved across plateaus by swapping in a node adjacent to all but one
+ * of it for that one. Nodes are chosen by lowest penalty; every node of a clique the walk gets stuck in is
+ * penalized, so the walk is pushed away from cliques it keeps returning to, and penalties decay every
+ * penaltyDelay rounds. After each round the clique is cut back to its last node and grown again.
+ * <p>
+ * For every node the walk keeps how many clique nodes it is not adjacent to, updated from the complement of
+ * one adjacency row per move, along with the sets of nodes missing none and missing exactly one, so picking
+ * a move never scans the whole graph.
+ * <p>
+ * Each of options.threads() walkers runs independently with its own random stream, split from the seed.
+ * The search never proves anything. It stops at the time limit, on cancellation, or once a clique of the
+ * target size is found; without a target, each walker also gives up after a long run without improving.
+ */
+public class LocalSearch {
+    // Look at the clock, cancellation and shared incumbent once per this many moves, and once per round
+    private static final int CHECK_INTERVAL = 1 << 10;
+    // Without a target, a walker gives up after this many moves without a larger clique
+    private static final long STALL_MOVES = 20_000_000L;
+
+    private final BitMatrix graph;
+    private final int penaltyDelay;
+
+    public LocalSearch(BitMatrix graph) {
+        this(graph, 2);
+    }
+
+    /**
+     * @param penaltyDelay rounds between decays of the penalties; 1 turns penalties off and perturbs by adding
+     * a random node instead of restarting from the last one, which suits graphs without deceptive cliques
+     */
+    public LocalSearch(BitMatrix graph, int penaltyDelay) {
+        if (penaltyDelay < 1)
+            throw new IllegalArgumentException("Penalty delay must be at least 1!");
+        this.graph = graph;
+        this.penaltyDelay = penaltyDelay;
+    }
+
+    public SolveResult solve(SolveOptions options) throws ExecutionException, InterruptedException {
+        final int WALKERS = options.threads();
+        Run run = new Run(options);
+        SplittableRandom seeds = options.seed() != null ? new SplittableRandom(options.seed()) : new SplittableRandom();
+        Walker[] walkers = new Walker[WALKERS];
+        for (int i = 0; i < WALKERS; ++i)
+            walkers[i] = new Walker(run, seeds.split());
+
+        ExecutorService executor = Executors.newFixedThreadPool(WALKERS);
+        ProgressReporter reporter = options.progressInterval() == null ? null
+                : new ProgressReporter(run.stats, run.incumbent, options.progressInterval(), System.out);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Walker walker : walkers)
+                futures.add(executor.submit(walker::walk));
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally {
+            executor.shutdown();
+            if (reporter != null)
+                reporter.close();
+        }
+
+        long moves = 0;
+        Walker best = walkers[0];
+        for (Walker walker : walkers) {
+            moves += walker.stats.nodesExpanded();
+            // Ties go to the lowest walker, so a seeded run returns the same clique every time
+            if (walker.bestSize > best.bestSize)
+                best = walker;
+        }
+        int[] clique = graph.setToArray(best.bestClique, 0);
+        // A shared incumbent may hold a larger clique from another solver
+        if (run.incumbent.size() > clique.length)
+            clique = run.incumbent.clique();
+        return new SolveResult(clique, false, moves, run.incumbent.elapsedNanos(), run.stats);
+    }
+
+    /**
+     * State shared by the walkers of one solve.
+     */
+    private static class Run {
+        final Incumbent incumbent;
+        final SearchStats stats;
+        final Cancellation cancellation;
+        final long start = System.nanoTime();
+        final long timeLimitNanos;
+        final boolean targeted;
+        final int target;
+        volatile boolean stopped;
+
+        Run(SolveOptions options) {
+            incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+            stats = options.stats() != null ? options.stats() : new SearchStats();
+            cancellation = options.cancellation();
+            timeLimitNanos = options.timeLimitNanos();
+            target = options.target() != null ? options.target() : Integer.MAX_VALUE;
+            targeted = options.target() != null;
+        }
+
+        boolean shouldStop() {
+            if (!stopped && (cancellation.isCancelled() || System.nanoTime() - start >= timeLimitNanos || incumbent.size() >= target))
+                stopped = true;
+            return stopped;
+        }
+    }
+
+    private class Walker {
+        final Run run;
+        final SplittableRandom random;
+        final WorkerStats stats;
+        final int nodes;
+        final int stride;
+        final long[] rows;
+        final long lastWordMask;
+
+        final long[] clique;
+        int size;
+        // For each node, how many clique nodes it is not adjacent to
+        final int[] missing;
+        // Nodes outside the clique missing none, and missing exactly one, of its nodes
+        final long[] missingNone;
+        final long[] missingOne;
+        final int[] penalties;
+        int penaltyRounds;
+
+        // Nodes swapped out during the current plateau, which may not come back during it
+        final long[] tabu;
+        // The clique as the plateau started, and how much of it is left
+        final long[] plateauStart;
+        final long[] complement;
+        int lastAdded = -1;
+
+        final long[] bestClique;
+        int bestSize;
+        long lastImprovement;
+
+        Walker(Run run, SplittableRandom random) {
+            this.run = run;
+            this.random = random;
+            stats = run.stats.newWorker();
+            nodes = graph.nodes();
+            stride = graph.stride();
+            rows = graph.words();
+            lastWordMask = nodes % 64 == 0 ? -1L : (1L << nodes) - 1;
+
+            clique = new long[stride];
+            missing = new int[nodes];
+            missingNone = new long[stride];
+            missingOne = new long[stride];
+            penalties = new int[nodes];
+            tabu = new long[stride];
+            plateauStart = new long[stride];
+            complement = new long[stride];
+            bestClique = new long[stride];
+            for (int i = 0; i < nodes; ++i)
+                BitMatrix.set(missingNone, 0, i);
+        }
+
+        void walk() {
+            long start = System.nanoTime();
+            add(random.nextInt(nodes));
+            while (!stopping()) {
+                // Grow and cross plateaus until stuck in a clique that neither move can leave
+                boolean moved = true;
+                while (moved && !run.stopped) {
+                    while (!graph.isEmpty(missingNone, 0) && !run.stopped)
+                        add(select(missingNone, null));
+                    moved = plateau();
+                }
+
+                if (penaltyDelay > 1)
+                    penalize();
+                perturb();
+            }
+            stats.rootFinished(System.nanoTime() - start);
+        }
+
+        /**
+         * Checked once per round, since a round on a graph with nothing left to add makes no moves at all.
+         */
+        private boolean stopping() {
+            // A clique of every node cannot grow, and no other can be larger
+            if (bestSize == nodes)
+                run.stopped = true;
+            if (!run.targeted && stats.nodesExpanded - lastImprovement > STALL_MOVES)
+                return true;
+            return run.shouldStop();
+        }
+
+        /**
+         * Swaps nodes missing one clique node in for that node until one of them opens up an add, the clique
+         * has been swapped out entirely or there is nothing left to swap.
+         * @return true if it ended with a node to add
+         */
+        private boolean plateau() {
+            System.arraycopy(clique, 0, plateauStart, 0, stride);
+            Arrays.fill(tabu, 0);
+            int remaining = size;
+            while (graph.isEmpty(missingNone, 0) && remaining > 0 && !run.stopped) {
+                int in = select(missingOne, tabu);
+                if (in < 0)
+                    return false;
+
+                int out = nonNeighborInClique(in);
+                remove(out);
+                BitMatrix.set(tabu, 0, out);
+                if (BitMatrix.get(plateauStart, 0, out))
+                    --remaining;
+                add(in);
+            }
+
+            return !graph.isEmpty(missingNone, 0);
+        }
+
+        private void penalize() {
+            for (int node = graph.nextSetBit(clique, 0, 0); node >= 0; node = graph.nextSetBit(clique, 0, node + 1))
+                ++penalties[node];
+            if (++penaltyRounds % penaltyDelay == 0)
+                for (int node = 0; node < nodes; ++node)
+                    if (penalties[node] > 0)
+                        --penalties[node];
+        }
+
+        /**
+         * With penalties, restarts from the last node added; without them, forces in a random node and
+         * drops whatever it is not adjacent to.
+         */
+        private void perturb() {
+            if (penaltyDelay > 1) {
+                int keep = lastAdded;
+                for (int node = graph.nextSetBit(clique, 0, 0); node >= 0; node = graph.nextSetBit(clique, 0, node + 1))
+                    if (node != keep)
+                        remove(node);
+                return;
+            }
+
+            if (size == nodes)
+                return;
+            int node;
+            do {
+                node = random.nextInt(nodes);
+            } while (BitMatrix.get(clique, 0, node));
+            for (int out = nonNeighborInClique(node); out >= 0; out = nonNeighborInClique(node))
+                remove(out);
+            add(node);
+        }
+
+        /**
+         * @return a node of candidates, outside excluded, with the lowest penalty, ties broken at random;
+         * -1 if there is none
+         */
+        private int select(long[] candidates, long[] excluded) {
+            // Count the ties first, so only one random number is drawn however many there are
+            int lowest = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int i = 0; i < stride; ++i) {
+                long word = excluded == null ? candidates[i] : candidates[i] & ~excluded[i];
+                while (word != 0) {
+                    int penalty = penalties[(i << 6) + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                    if (penalty < lowest) {
+                        lowest = penalty;
+                        ties = 1;
+                    }
+                    else if (penalty == lowest)
+                        ++ties;
+                }
+            }
+            if (ties == 0)
+                return -1;
+
+            int skip = ties == 1 ? 0 : random.nextInt(ties);
+            for (int i = 0; ; ++i) {
+                long word = excluded == null ? candidates[i] : candidates[i] & ~excluded[i];
+                while (word != 0) {
+                    int node = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if (penalties[node] == lowest && skip-- == 0)
+                        return node;
+                }
+            }
+        }
+
+        /**
+         * @return the first clique node that node is not adjacent to, or -1 if it is adjacent to all of them
+         */
+        private int nonNeighborInClique(int node) {
+            int base = node * stride;
+            for (int i = 0; i < stride; ++i) {
+                long word = clique[i] & ~rows[base + i];
+                if (word != 0)
+                    return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+
+            return -1;
+        }
+
+        private void add(int node) {
+            if ((++stats.nodesExpanded & (CHECK_INTERVAL - 1)) == 0)
+                run.shouldStop();
+
+            BitMatrix.set(clique, 0, node);
+            BitMatrix.clear(missingNone, 0, node);
+            BitMatrix.clear(missingOne, 0, node);
+            ++size;
+            lastAdded = node;
+            forEachNonNeighbor(node, +1);
+
+            if (size > bestSize) {
+                bestSize = size;
+                lastImprovement = stats.nodesExpanded;
+                System.arraycopy(clique, 0, bestClique, 0, stride);
+                stats.depth(size);
+                if (size > run.incumbent.size() && run.incumbent.offer(graph.setToArray(clique, 0)))
+                    ++stats.incumbentUpdates;
+                if (size >= run.target)
+                    run.stopped = true;
+            }
+        }
+
+        private void remove(int node) {
+            BitMatrix.clear(clique, 0, node);
+            --size;
+            forEachNonNeighbor(node, -1);
+            // Every remaining clique node is adjacent to it
+            BitMatrix.set(missingNone, 0, node);
+        }
+
+        /**
+         * Adds delta to the missing count of every other node not adjacent to node, moving them between
+         * the missing-none and missing-one sets to match.
+         */
+        private void forEachNonNeighbor(int node, int delta) {
+            int base = node * stride;
+            for (int i = 0; i < stride; ++i)
+                complement[i] = ~rows[base + i];
+            complement[stride - 1] &= lastWordMask;
+            BitMatrix.clear(complement, 0, node);
+
+            for (int i = 0; i < stride; ++i) {
+                long word = complement[i];
+                while (word != 0) {
+                    int other = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    int count = missing[other] += delta;
+                    // Nodes in the clique are adjacent to all of it, so only outside nodes change sets
+                    if (count == 0) {
+                        BitMatrix.clear(missingOne, 0, other);
+                        BitMatrix.set(missingNone, 0, other);
+                    }
+                    else if (count == 1) {
+                        BitMatrix.clear(missingNone, 0, other);
+                        BitMatrix.set(missingOne, 0, other);
+                    }
+                    else if (count == 2 && delta > 0)
+                        BitMatrix.clear(missingOne, 0, other);
+                }
+            }
+        }
+    }
+}
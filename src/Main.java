@@ -1,9 +1,10 @@
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class Main {
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
         Scanner in = new Scanner(System.in);
         //String name = "data/test.dat";
         //String name = "data/brock.dat";
@@ -21,11 +22,8 @@ public class Main {
         System.out.format("%-20s %5s %5s %s%n", "Graph File", "Known", "Found", "Time");
 
         for (Map.Entry<String, Integer> graphEntry : graphs.entrySet()) {
-            Graph graph;
             String graphName = graphEntry.getKey();
-            try (Scanner file = new Scanner(new File("data/" + graphName))) {
-                graph = new Graph(file);
-            }
+            Graph graph = new Graph(GraphCache.load(Path.of("data", graphName)));
 
             // System.out.println("Upper bound: " + graph.cliqueUpperBound());
             // The .clq files use 1-based numbering for nodes and edges but report cliques with 0-based numbering
@@ -52,278 +50,27 @@ public class Main {
     /**
      * Builds cliques by sorting graph by degree.
      * Hopefully, large-degree nodes will be in the same clique as their neighbors.
+     * Large graphs are sorted by walk count instead; see {@link CliqueHeuristic#defaultOrder(Graph)}.
      *
      * @param graph input graph
      */
     public static int buildCliquesByAscendingDegree(Graph graph) {
-
-        final int PRIME = findPrime(graph.nodes());
-        Set<BitSet> cliques = new HashSet<>();
-        List<BitSet> listOfCliques = new ArrayList<>(); // List for randomly selecting cliques
-        int[] sortedNodes = graph.getNodesSortedByDegree();
-        int cutoff = 1;
-
-        //int[] sortedNodes = graph.getNodesSortedByWalkSize();
-        int largest = 1;
-        for (int i = 0; i < sortedNodes.length; ++i) {
-            boolean connected = true;
-            BitSet clique = new BitSet(sortedNodes.length);
-            clique.set(sortedNodes[i]);
-            for (int j = i + 1; connected && j < sortedNodes.length; ++j) {
-                for (int k = i; connected && k < j; ++k) {
-                    if (!graph.hasEdge(sortedNodes[k], sortedNodes[j]))
-                        connected = false;
-                }
-                if (connected) {
-                    largest = update((BitSet) clique.clone(), cliques, listOfCliques, cutoff, largest);
-                    clique.set(sortedNodes[j]);
-                }
-            }
-            largest = update(clique, cliques, listOfCliques, cutoff, largest);
-/*
-            if (clique.cardinality() > 1) { // Put the singleton clique in as well
-                BitSet singleton = new BitSet(sortedNodes.length);
-                singleton.set(sortedNodes[i]);
-                cliques.add(clique);
-                listOfCliques.add(clique);
-            }
-*/
-
-            //System.out.println("Added clique with size: " + clique.cardinality());
-        }
-
-        if (cliques.size() < 2)
-            return largest;
-
-        // All pairs
-        int initialSize = listOfCliques.size();
-        for (int i = 0; i < initialSize - 1; ++i)
-            for (int j = i + 1; j < initialSize; ++j) {
-                //BitSet candidate = graph.mergeCliques(listOfCliques.get(i), listOfCliques.get(j));
-                BitSet candidate = graph.combineCliques(listOfCliques.get(i), listOfCliques.get(j));
-                if (candidate != null && !cliques.contains(candidate)) {
-                    // System.out.println("Found new clique!");
-                    largest = update(candidate, cliques, listOfCliques, cutoff, largest);
-                }
-            }
-
-        listOfCliques.sort(Comparator.comparingInt(BitSet::cardinality));
-
-        Random random = new Random();
-        double windowPower = 2;
-        final int EDGES = graph.edges();
-        final int NODES = graph.nodes();
-        //int window = Math.min(10, listOfCliques.size());
-
-        // Build up some cliques
-        int index = listOfCliques.size() - 1;
-        int iterations = 0;
-
-        /*
-        while (listOfCliques.size() < EDGES &&  iterations < 1000000) {
-                boolean found = false;
-                BitSet clique = listOfCliques.get(index);
-                //for (int node = NODES - 1; node >= lastNode && !found; --node) {
-                for (int node = 0; node < NODES && !found; ++node) {
-                    BitSet candidate = graph.addNode(clique, sortedNodes[node]);
-                    if (candidate != null && !cliques.contains(candidate)) {
-                        // System.out.println("Found new clique!");
-                        largest = update(candidate, cliques, listOfCliques, cutoff, largest);
-                        found = true;
-                    }
-                }
-
-                --index;
-                if (index == -1)
-                    index = listOfCliques.size() - 1;
-
-                ++iterations;
-            }
-
-        // Build up some more cliques by pairing
-        iterations = 0;
-        while (listOfCliques.size() < 2*EDGES &&  iterations < 1000000) {
-            int first = (int) Math.pow((Math.pow(listOfCliques.size(), 2 + 1)) * random.nextDouble(), 1.0 / (2 + 1));
-            int second;
-            do {
-                second = (int) Math.pow((Math.pow(listOfCliques.size(), 2 + 1)) * random.nextDouble(), 1.0 / (2 + 1));
-            } while (second == first);
-
-            //BitSet candidate = graph.mergeCliques(listOfCliques.get(first), listOfCliques.get(second));
-            BitSet candidate = graph.combineCliques(listOfCliques.get(first), listOfCliques.get(second));
-            if (candidate != null && !cliques.contains(candidate)) {
-                // System.out.println("Found new clique!");
-                largest = update(candidate, cliques, listOfCliques, cutoff, largest);
-                //if (candidate.cardinality() >= largest)
-                    //System.out.println("Found a largest clique!");
-            }
-            ++iterations;
-        }
-*/
-        int iterationsAtCurrentLargest = 0;
-        int node = 0;
-        while(iterationsAtCurrentLargest < 100) {
-
-            int first = (int) Math.pow((Math.pow(listOfCliques.size(), 2 + 1)) * random.nextDouble(), 1.0 / (2 + 1));
-            int second;
-            do {
-                second = (int) Math.pow((Math.pow(listOfCliques.size(), 2 + 1)) * random.nextDouble(), 1.0 / (2 + 1));
-            } while (second == first);
-
-
-
-            BitSet candidate = graph.combineCliques(listOfCliques.get(first), listOfCliques.get(second));
-            if (candidate != null && !cliques.contains(candidate)) {
-                // System.out.println("Found new clique!");
-                int value = update(candidate, cliques, listOfCliques, cutoff, largest);
-                if (value > largest) {
-                    largest = value;
-                    iterationsAtCurrentLargest = 0;
-                }
-            }
-
-
-
-            if (iterations % NODES == 0) {
-
-                //long start = System.nanoTime();
-                listOfCliques.sort(Comparator.comparingInt(BitSet::cardinality));
-                //long end = System.nanoTime();
-                //System.out.format("%nTime spent sorting: %.3f%n", (end - start)/1000000000.0);
-                /*
-                System.out.println("Total cliques: " + cliques.size() + " Window Power: " + windowPower);
-                int currentSize = listOfCliques.get(0).cardinality();
-                int count = 1;
-                for (int i = 1; i < listOfCliques.size(); ++i) {
-                    int size = listOfCliques.get(i).cardinality();
-                    if (size > currentSize) {
-                        System.out.printf("Size: %3d Cliques %d%n", currentSize, count);
-                        currentSize = size;
-                        count = 1;
-                    }
-                    else
-                        ++count;
-                }
-                System.out.printf("Size: %3d Cliques %d%n", currentSize, count);
-                */
-
-                if (listOfCliques.size() > EDGES) {
-                    ++cutoff;
-                    windowPower = 2;
-                    int begin = 0;
-                    int end = listOfCliques.size();
-                    while (begin < end) {
-                        int middle = (begin + end)/2;
-                        int middleSize = listOfCliques.get(middle).cardinality();
-                        if (middleSize <= cutoff) {
-                            begin = middle + 1;
-                        }
-                        else {
-                            end = middle;
-                        }
-                    }
-
-                    // Remove small elements
-                    listOfCliques.subList(0, begin).clear();
-                    //window = Math.min(listOfCliques.size(), window);
-                }
-
-
-
-                //System.out.format("%10d: %d cliques, largest: %d%n", iteration, cliques.size(), largest);
-
-
-                //int oldSize = listOfCliques.size();
-
-                int largestBeforeWindow = largest;
-
-
-                for (int i = 0; i < NODES; ++i) {
-                    boolean found = false;
-                    int lastNode = 0;
-                    index = (int) Math.pow((Math.pow(listOfCliques.size(), windowPower + 1)) * random.nextDouble(), 1.0 / (windowPower + 1));
-                    BitSet clique = listOfCliques.get(index);
-
-                    //for (int node = NODES - 1; node >= lastNode && !found; --node) {
-                    for (int repeat = 0; repeat < NODES && !found; ++repeat) {
-                        candidate = graph.addNode(clique, sortedNodes[node]);
-                        node = (node + PRIME) % NODES;
-                        if (candidate != null && !cliques.contains(candidate)) {
-                            // System.out.println("Found new clique!");
-                            largest = update(candidate, cliques, listOfCliques, cutoff, largest);
-                            found = true;
-                        }
-                    }
-                }
-
-
-                // No larger clique found, grow window
-                /*
-                if (largest == oldLargest)
-                    window = Math.min(window * 2, Math.min(listOfCliques.size(), NODES));
-                else
-                    window = Math.max(window / 2, Math.min(10, listOfCliques.size()));
-
-                 */
-
-                if (largest == largestBeforeWindow) {
-                    windowPower = Math.max(windowPower - .1, 0);
-                }
-                else {
-                    windowPower = Math.min(windowPower + .1, 5);
-                    iterationsAtCurrentLargest = 0;
-                }
-
-                //System.out.println("Window size: " + window);
-                ++iterationsAtCurrentLargest;
-            }
-
-
-            ++iterations;
-        }
-
-        //System.out.format("%10s: %d cliques, largest: %d%n", "Final", cliques.size(), largest);
-
-        return largest;
+        return buildCliquesByAscendingDegree(graph, new Incumbent(null), new Cancellation());
     }
 
-    private static int findPrime(int value) {
-        if (value % 2 == 0)
-            --value;
-        else
-            value -= 2;
-
-        while (!isPrime(value)) {
-            value -= 2;
-        }
-
-        return value;
-    }
-
-    private static boolean isPrime(int value) {
-        if (value == 2)
-            return true;
-        else if (value % 2 == 0)
-            return false;
-        for (int i = 3; i*i <= value; i += 2)
-            if (value % i == 0)
-                return false;
-
-        return true;
-    }
+    /**
+     * Same as {@link #buildCliquesByAscendingDegree(Graph)}, but every new largest clique is offered to incumbent
+     * as soon as it is built, and the search gives up early once stop is cancelled.
+     */
+    public static int buildCliquesByAscendingDegree(Graph graph, Incumbent incumbent, Cancellation stop) {
+        CliqueHeuristic heuristic = new CliqueHeuristic(graph, incumbent, new Random(), CliqueHeuristic.DEDUPE_BYTES);
+        boolean searching = heuristic.seed(stop);
+        while (searching)
+            searching = heuristic.round(stop);
 
-    private static int update(BitSet clique, Set<BitSet> cliques, List<BitSet> listOfCliques, int cutoff, int largest) {
-        int size = clique.cardinality();
-        if (size > cutoff) {
-            cliques.add(clique);
-            listOfCliques.add(clique);
-            return Math.max(size, largest);
-        }
-        else
-            return largest;
+        return heuristic.largest();
     }
 
-
     /**
      * Builds cliques by merging existing cliques. Initially, it creates all cliques with three elements.
      *
@@ -0,0 +1,14 @@
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Common form of every clique engine, so they can be picked by name from {@link SolverRegistry}
+ * and compared without editing source.
+ */
+@FunctionalInterface
+public interface MaxCliqueSolver {
+    /**
+     * Finds as large a clique in graph as the options allow. Engines that cannot stop early ignore the
+     * time limit and cancellation, and those with a fixed thread count ignore options.threads().
+     */
+    SolveResult solve(BitMatrix graph, SolveOptions options) throws ExecutionException, InterruptedException;
+}
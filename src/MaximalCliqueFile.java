@@ -0,0 +1,160 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary file of cliques, written as an enumeration streams them in. Layout (little-endian header):
+ * <pre>
+ *   int  magic ("FMCQ")
+ *   int  version
+ *   int  nodes
+ *   then per clique: varint size, varint first node, varint gap to each next node
+ * </pre>
+ * Nodes are ascending, so the gaps are small and most cliques take about a byte per node. Each writing thread
+ * fills a buffer of its own and appends it to the file whole, so threads only meet when a buffer is flushed.
+ */
+public class MaximalCliqueFile implements CliqueConsumer, Closeable {
+    private static final int MAGIC = 0x51434D46; // "FMCQ" read as little-endian bytes
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int BUFFER_BYTES = 1 << 20;
+    // Longest encoding of an int
+    private static final int VARINT_BYTES = 5;
+
+    private final FileChannel channel;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private final ThreadLocal<ByteBuffer> buffer = ThreadLocal.withInitial(() -> {
+        ByteBuffer created = ByteBuffer.allocate(BUFFER_BYTES);
+        synchronized (buffers) {
+            buffers.add(created);
+        }
+        return created;
+    });
+
+    public MaximalCliqueFile(Path path, int nodes) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(nodes).flip();
+        write(header);
+    }
+
+    @Override
+    public void clique(int[] nodes, int size) {
+        ByteBuffer out = buffer.get();
+        final int NEEDED = VARINT_BYTES * (size + 1);
+        if (out.remaining() < NEEDED) {
+            flush(out);
+            // Only a clique of some 200,000 nodes outgrows a buffer
+            if (out.remaining() < NEEDED)
+                out = ByteBuffer.allocate(NEEDED);
+        }
+
+        putVarint(out, size);
+        int previous = 0;
+        for (int i = 0; i < size; ++i) {
+            putVarint(out, nodes[i] - previous);
+            previous = nodes[i];
+        }
+        if (out != buffer.get())
+            flush(out);
+    }
+
+    /**
+     * Flushes every thread's buffer, so no thread may still be writing.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            for (ByteBuffer out : buffers)
+                flush(out);
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Passes every clique in the file at path to consumer, from this thread, reusing one array.
+     * @return how many there were
+     */
+    public static long read(Path path, CliqueConsumer consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            ByteBuffer header = ByteBuffer.wrap(in.readNBytes(HEADER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                throw new IllegalArgumentException("Not a maximal clique file: " + path);
+
+            int[] nodes = new int[header.getInt(8)];
+            long count = 0;
+            for (int size = readVarint(in, true); size >= 0; size = readVarint(in, true)) {
+                if (size > nodes.length)
+                    throw new IllegalArgumentException("Corrupt maximal clique file: " + path);
+                int previous = 0;
+                for (int i = 0; i < size; ++i) {
+                    previous += readVarint(in, false);
+                    nodes[i] = previous;
+                }
+                consumer.clique(nodes, size);
+                ++count;
+            }
+
+            return count;
+        }
+    }
+
+    private void flush(ByteBuffer out) {
+        out.flip();
+        try {
+            synchronized (channel) {
+                write(out);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.clear();
+    }
+
+    private void write(ByteBuffer out) throws IOException {
+        while (out.hasRemaining())
+            channel.write(out);
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * @return the next varint, or -1 at the end of the file if atRecord, where a clique may start
+     */
+    private static int readVarint(InputStream in, boolean atRecord) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int read = in.read();
+            if (read < 0) {
+                if (atRecord && shift == 0)
+                    return -1;
+                throw new EOFException("Maximal clique file ends inside a clique!");
+            }
+            value |= (read & 0x7F) << shift;
+            if ((read & 0x80) == 0)
+                return value;
+        }
+
+        throw new IllegalArgumentException("Corrupt varint in maximal clique file!");
+    }
+}
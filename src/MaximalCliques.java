@@ -0,0 +1,237 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enumerates every maximal clique of a {@link BitMatrix} with Bron-Kerbosch and Tomita pivoting, split into one
+ * subproblem per node as in Eppstein, Loffler and Strash. In smallest-last (degeneracy) order every maximal
+ * clique is found exactly once, from its last node: the candidates P are that node's neighbors before it, at
+ * most degeneracy-many, and its neighbors after it start out in the excluded set X.
+ * <p>
+ * Roots are taken densest core first by any number of threads. Cliques go to a {@link CliqueConsumer} as they
+ * are found and are never collected, so memory stays at a few set buffers per depth per thread however many
+ * there are; {@link MaximalCliqueFile} writes them out compactly. Threads interleave, so the order in which
+ * cliques arrive differs from run to run.
+ */
+public class MaximalCliques {
+    private final BitMatrix graph;
+    private final int[] order;
+    private final int degeneracy;
+
+    public MaximalCliques(BitMatrix graph) {
+        int[] cores = new int[graph.nodes()];
+        order = VertexOrdering.degeneracy(graph, cores);
+        this.graph = graph.permute(order);
+        int largestCore = 0;
+        for (int core : cores)
+            largestCore = Math.max(largestCore, core);
+        degeneracy = largestCore;
+    }
+
+    /**
+     * Enumerates the graph in the first argument, writing the cliques to the file in the second if given,
+     * and otherwise only counting them.
+     */
+    public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
+        if (args.length < 1)
+            throw new IllegalArgumentException("Usage: MaximalCliques graph.clq [output]");
+
+        BitMatrix graph = GraphCache.load(Path.of(args[0]));
+        MaximalCliques enumerator = new MaximalCliques(graph);
+        EnumerationResult result;
+        if (args.length > 1) {
+            try (MaximalCliqueFile file = new MaximalCliqueFile(Path.of(args[1]), graph.nodes())) {
+                result = enumerator.enumerate(new SolveOptions(), file);
+            }
+        }
+        else
+            result = enumerator.enumerate(new SolveOptions(), (nodes, size) -> { });
+        System.out.println(args[0] + ": " + result);
+    }
+
+    /**
+     * Passes every maximal clique to consumer, from options.threads() threads at once, until done, the time
+     * limit passes or the enumeration is cancelled. The largest clique seen so far is kept in the options'
+     * incumbent, or one of its own, for progress lines and listeners.
+     */
+    public EnumerationResult enumerate(SolveOptions options, CliqueConsumer consumer) throws ExecutionException, InterruptedException {
+        final int THREADS = options.threads();
+        Run run = new Run(options, consumer);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; ++i)
+            workers.add(new Worker(run));
+
+        ProgressReporter reporter = options.progressInterval() == null ? null
+                : new ProgressReporter(run.stats, run.incumbent, options.progressInterval(), System.out);
+        List<Future<Long>> futures;
+        try {
+            futures = executor.invokeAll(workers);
+        }
+        finally {
+            executor.shutdown();
+            if (reporter != null)
+                reporter.close();
+        }
+
+        long cliques = 0;
+        long searchNodes = 0;
+        for (int i = 0; i < THREADS; ++i) {
+            cliques += futures.get(i).get();
+            searchNodes += workers.get(i).stats.nodesExpanded;
+        }
+        return new EnumerationResult(cliques, !run.stopped, searchNodes, run.incumbent.elapsedNanos(), run.stats);
+    }
+
+    /**
+     * State shared by the workers of one enumeration.
+     */
+    private class Run {
+        final AtomicInteger nextRoot = new AtomicInteger();
+        final CliqueConsumer consumer;
+        final Incumbent incumbent;
+        final SearchStats stats;
+        final Cancellation cancellation;
+        final long start = System.nanoTime();
+        final long timeLimitNanos;
+        volatile boolean stopped;
+
+        Run(SolveOptions options, CliqueConsumer consumer) {
+            this.consumer = consumer;
+            incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+            stats = options.stats() != null ? options.stats() : new SearchStats();
+            cancellation = options.cancellation();
+            timeLimitNanos = options.timeLimitNanos();
+        }
+
+        boolean shouldStop() {
+            if (!stopped && (cancellation.isCancelled() || System.nanoTime() - start >= timeLimitNanos))
+                stopped = true;
+            return stopped;
+        }
+    }
+
+    /**
+     * Takes roots from a shared counter until none are left. All buffers are allocated when the worker is
+     * created, so the enumeration itself allocates nothing.
+     */
+    private class Worker implements Callable<Long> {
+        // Look at the clock and cancellation once per this many search nodes
+        private static final int CHECK_INTERVAL = 1 << 10;
+
+        private final Run run;
+        private final WorkerStats stats;
+        private final int stride;
+        // Candidates, excluded nodes and the candidates still to branch on for depth d live at
+        // [d * stride, (d + 1) * stride); a root has at most degeneracy candidates, so no clique is deeper
+        private final long[] candidates;
+        private final long[] excluded;
+        private final long[] branches;
+        private final int[] clique;
+        private final int[] original;
+        private long cliques;
+        private boolean stopped;
+
+        Worker(Run run) {
+            this.run = run;
+            stats = run.stats.newWorker();
+            stride = graph.stride();
+            final int DEPTHS = degeneracy + 2;
+            candidates = new long[DEPTHS * stride];
+            excluded = new long[DEPTHS * stride];
+            branches = new long[DEPTHS * stride];
+            clique = new int[DEPTHS];
+            original = new int[DEPTHS];
+        }
+
+        @Override
+        public Long call() {
+            AtomicInteger nextRoot = run.nextRoot;
+            for (int node = nextRoot.getAndIncrement(); node < graph.nodes() && !run.shouldStop(); node = nextRoot.getAndIncrement()) {
+                long rootStart = System.nanoTime();
+                // Neighbors after the root were roots of their own, with the root as a candidate
+                graph.copyRow(node, excluded, 0);
+                BitMatrix.clearThrough(excluded, 0, node);
+                graph.copyRow(node, candidates, 0);
+                for (int i = 0; i < stride; ++i)
+                    candidates[i] &= ~excluded[i];
+
+                clique[0] = node;
+                expand(0, 1);
+                if (stopped)
+                    break;
+                stats.rootFinished(System.nanoTime() - rootStart);
+            }
+
+            return cliques;
+        }
+
+        private void expand(int depth, int size) {
+            if ((++stats.nodesExpanded & (CHECK_INTERVAL - 1)) == 0 && run.shouldStop()) {
+                stopped = true;
+                return;
+            }
+
+            final int OFFSET = depth * stride;
+            stats.depth(depth);
+            if (graph.isEmpty(candidates, OFFSET)) {
+                if (graph.isEmpty(excluded, OFFSET))
+                    report(size);
+                return;
+            }
+
+            // Tomita pivot: the node of P or X with the most neighbors in P. Any maximal clique extending this one
+            // holds the pivot or a non-neighbor of it, so only those candidates need branching
+            int count = graph.popcount(candidates, OFFSET);
+            int pivot = -1;
+            int most = -1;
+            for (int node = graph.nextSetBit(candidates, OFFSET, 0); node >= 0 && most < count - 1; node = graph.nextSetBit(candidates, OFFSET, node + 1)) {
+                int neighbors = graph.intersectionCount(node, candidates, OFFSET);
+                if (neighbors > most) {
+                    most = neighbors;
+                    pivot = node;
+                }
+            }
+            for (int node = graph.nextSetBit(excluded, OFFSET, 0); node >= 0 && most < count; node = graph.nextSetBit(excluded, OFFSET, node + 1)) {
+                int neighbors = graph.intersectionCount(node, candidates, OFFSET);
+                if (neighbors > most) {
+                    most = neighbors;
+                    pivot = node;
+                }
+            }
+            // An excluded node adjacent to every candidate keeps anything here from being maximal
+            if (most == count && BitMatrix.get(excluded, OFFSET, pivot)) {
+                ++stats.prunedByBound;
+                return;
+            }
+
+            System.arraycopy(candidates, OFFSET, branches, OFFSET, stride);
+            graph.removeRow(pivot, branches, OFFSET);
+            for (int node = graph.nextSetBit(branches, OFFSET, 0); node >= 0; node = graph.nextSetBit(branches, OFFSET, node + 1)) {
+                clique[size] = node;
+                graph.intersectRow(node, candidates, OFFSET, candidates, OFFSET + stride);
+                graph.intersectRow(node, excluded, OFFSET, excluded, OFFSET + stride);
+                expand(depth + 1, size + 1);
+                if (stopped)
+                    return;
+
+                BitMatrix.clear(candidates, OFFSET, node);
+                BitMatrix.set(excluded, OFFSET, node);
+            }
+        }
+
+        private void report(int size) {
+            for (int i = 0; i < size; ++i)
+                original[i] = order[clique[i]];
+            Arrays.sort(original, 0, size);
+
+            ++cliques;
+            run.consumer.clique(original, size);
+            if (size > run.incumbent.size() && run.incumbent.offer(Arrays.copyOf(original, size)))
+                ++stats.incumbentUpdates;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Times the inner operations of the heuristic and the older exact engines on real graphs, so that changes to
+ * the graph representation or to allocation can be measured without the noise of a whole solve.
+ * Each benchmark is warmed up, then run for several fixed-length iterations; the report gives the mean and
+ * spread of the time per operation and the bytes allocated per operation (from the thread's allocation
+ * counter, which is what a GC allocation profiler reports as well).
+ * <p>
+ * Usage: Microbenchmarks [graph ...] with graphs from data/; defaults to brock200_1.clq and keller4.clq.
+ */
+public class Microbenchmarks {
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long ITERATION_NANOS = 500_000_000L;
+    private static final int ITERATIONS = 5;
+    // Inputs are cycled through so that no single case gets special treatment from the JIT or the branch predictor
+    private static final int INPUTS = 1 << 10;
+    private static final long SEED = 42;
+
+    // Every result is folded into this so the JIT cannot discard the work
+    private static volatile long sink;
+
+    @FunctionalInterface
+    private interface Operation {
+        /**
+         * @param i invocation number, for picking an input
+         * @return anything derived from the result
+         */
+        long run(int i);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] graphNames = args.length > 0 ? args : new String[] {"brock200_1.clq", "keller4.clq"};
+
+        System.out.format("%-48s %12s %10s %12s%n", "Benchmark", "ns/op", "+-", "B/op");
+        for (String graphName : graphNames) {
+            Path path = Path.of("data", graphName);
+            String text = Files.readString(path);
+            BitMatrix matrix = GraphCache.load(path);
+            Graph graph = new Graph(matrix);
+            GraphWithArrays arrays = new GraphWithArrays(matrix);
+            final int NODES = matrix.nodes();
+
+            Random random = new Random(SEED);
+            BitSet[] firsts = new BitSet[INPUTS];
+            BitSet[] seconds = new BitSet[INPUTS];
+            int[] nodes = new int[INPUTS];
+            int[] others = new int[INPUTS];
+            boolean[][] arrayCliques = new boolean[INPUTS][];
+            List<BitSet> pool = randomCliques(matrix, random, INPUTS);
+            for (int i = 0; i < INPUTS; ++i) {
+                firsts[i] = pool.get(random.nextInt(pool.size()));
+                seconds[i] = pool.get(random.nextInt(pool.size()));
+                nodes[i] = random.nextInt(NODES);
+                others[i] = random.nextInt(NODES);
+                arrayCliques[i] = new boolean[NODES];
+                for (int node = firsts[i].nextSetBit(0); node >= 0; node = firsts[i].nextSetBit(node + 1))
+                    arrayCliques[i][node] = true;
+            }
+            // The word kernels take every input packed into one buffer and write into shared scratch buffers
+            final int STRIDE = graph.stride();
+            long[] packedFirsts = new long[INPUTS * STRIDE];
+            long[] packedSeconds = new long[INPUTS * STRIDE];
+            for (int i = 0; i < INPUTS; ++i) {
+                long[] first = firsts[i].toLongArray();
+                long[] second = seconds[i].toLongArray();
+                System.arraycopy(first, 0, packedFirsts, i * STRIDE, first.length);
+                System.arraycopy(second, 0, packedSeconds, i * STRIDE, second.length);
+            }
+            long[] result = new long[STRIDE];
+            long[] wordScratch = new long[3 * STRIDE];
+            // makeClique writes into its clique, so it gets a fresh copy of each input every time round
+            boolean[][] scratch = new boolean[INPUTS][];
+            for (int i = 0; i < INPUTS; ++i)
+                scratch[i] = arrayCliques[i].clone();
+
+            String prefix = graphName + " ";
+            measure(prefix + "Graph.addNode", i -> {
+                BitSet clique = graph.addNode(firsts[i & (INPUTS - 1)], nodes[i & (INPUTS - 1)]);
+                return clique == null ? 0 : clique.length();
+            });
+            measure(prefix + "Graph.combineCliques", i -> {
+                BitSet clique = graph.combineCliques(firsts[i & (INPUTS - 1)], seconds[i & (INPUTS - 1)]);
+                return clique == null ? 0 : clique.length();
+            });
+            measure(prefix + "Graph.addNode(words)", i ->
+                    graph.addNode(packedFirsts, (i & (INPUTS - 1)) * STRIDE, nodes[i & (INPUTS - 1)], result, 0) ? 1 : 0);
+            measure(prefix + "Graph.combineCliques(words)", i -> graph.combineCliques(packedFirsts, (i & (INPUTS - 1)) * STRIDE,
+                    packedSeconds, (i & (INPUTS - 1)) * STRIDE, result, 0, wordScratch));
+            measure(prefix + "Graph.mergeCliques", i -> {
+                BitSet clique = graph.mergeCliques(firsts[i & (INPUTS - 1)], seconds[i & (INPUTS - 1)]);
+                return clique == null ? 0 : clique.length();
+            });
+            measure(prefix + "Graph.hasEdge", i -> graph.hasEdge(nodes[i & (INPUTS - 1)], others[i & (INPUTS - 1)]) ? 1 : 0);
+            measure(prefix + "GraphWithArrays.addNode", i -> {
+                boolean[] clique = arrays.addNode(arrayCliques[i & (INPUTS - 1)], nodes[i & (INPUTS - 1)]);
+                return clique == null ? 0 : clique.length;
+            });
+            // The copy is timed on its own as a baseline, and taken off to give the cost of makeClique itself
+            double copyNanos = measure(prefix + "GraphWithArrays.makeClique copy", i -> {
+                int input = i & (INPUTS - 1);
+                boolean[] clique = scratch[input];
+                System.arraycopy(arrayCliques[input], 0, clique, 0, NODES);
+                return clique[nodes[input]] ? 1 : 0;
+            });
+            double makeCliqueNanos = measure(prefix + "GraphWithArrays.makeClique+copy", i -> {
+                int input = i & (INPUTS - 1);
+                boolean[] clique = scratch[input];
+                System.arraycopy(arrayCliques[input], 0, clique, 0, NODES);
+                return arrays.makeClique(clique, nodes[input]) ? 1 : 0;
+            });
+            System.out.format("%-48s %12.1f %10s %12s%n", prefix + "GraphWithArrays.makeClique", makeCliqueNanos - copyNanos, "", "");
+            measure(prefix + "GraphWithArrays.hasEdge", i -> arrays.hasEdge(nodes[i & (INPUTS - 1)], others[i & (INPUTS - 1)]) ? 1 : 0);
+            measure(prefix + "GraphWithArrays.cardinality", i ->
+                    GraphWithArrays.cardinality(arrayCliques[i & (INPUTS - 1)], nodes[i & (INPUTS - 1)]));
+            measure(prefix + "new Graph(Scanner)", i -> new Graph(new Scanner(text)).edges());
+            measure(prefix + "new GraphWithArrays(Scanner)", i -> new GraphWithArrays(new Scanner(text)).edges());
+            measure(prefix + "new Graph(BitMatrix)", i -> new Graph(matrix).edges());
+            measure(prefix + "new GraphWithArrays(BitMatrix)", i -> new GraphWithArrays(matrix).edges());
+        }
+    }
+
+    /**
+     * Cliques of assorted sizes grown from random nodes by adding random candidates, like the ones
+     * the heuristic builds up and combines.
+     */
+    private static List<BitSet> randomCliques(BitMatrix graph, Random random, int count) {
+        final int NODES = graph.nodes();
+        long[] candidates = new long[graph.stride()];
+        List<BitSet> cliques = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            int node = random.nextInt(NODES);
+            BitSet clique = new BitSet(NODES);
+            clique.set(node);
+            graph.copyRow(node, candidates, 0);
+            int target = 2 + random.nextInt(NODES);
+            for (int size = 1; size < target && !graph.isEmpty(candidates, 0); ++size) {
+                int[] choices = graph.setToArray(candidates, 0);
+                node = choices[random.nextInt(choices.length)];
+                clique.set(node);
+                graph.intersectRow(node, candidates, 0, candidates, 0);
+            }
+            cliques.add(clique);
+        }
+
+        return cliques;
+    }
+
+    /**
+     * Times operation as the class comment describes and prints its line.
+     * @return mean time per operation, in nanoseconds
+     */
+    private static double measure(String name, Operation operation) {
+        // Grow the batch until one takes long enough that the clock and counter reads are noise
+        int batch = 1;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < WARMUP_NANOS) {
+            long batchStart = System.nanoTime();
+            run(operation, batch);
+            if (System.nanoTime() - batchStart < ITERATION_NANOS / 100 && batch < Integer.MAX_VALUE / 2)
+                batch *= 2;
+        }
+
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long thread = Thread.currentThread().getId();
+        double[] nanosPerOp = new double[ITERATIONS];
+        long operations = 0;
+        long allocated = 0;
+        for (int iteration = 0; iteration < ITERATIONS; ++iteration) {
+            long count = 0;
+            long bytesBefore = threads == null ? 0 : threads.getThreadAllocatedBytes(thread);
+            long iterationStart = System.nanoTime();
+            long elapsed;
+            do {
+                run(operation, batch);
+                count += batch;
+                elapsed = System.nanoTime() - iterationStart;
+            } while (elapsed < ITERATION_NANOS);
+            long bytesAfter = threads == null ? 0 : threads.getThreadAllocatedBytes(thread);
+
+            nanosPerOp[iteration] = (double) elapsed / count;
+            operations += count;
+            allocated += bytesAfter - bytesBefore;
+        }
+
+        double mean = 0;
+        for (double value : nanosPerOp)
+            mean += value;
+        mean /= ITERATIONS;
+        double variance = 0;
+        for (double value : nanosPerOp)
+            variance += (value - mean) * (value - mean);
+        double deviation = Math.sqrt(variance / (ITERATIONS - 1));
+
+        if (threads == null)
+            System.out.format("%-48s %12.1f %10.1f %12s%n", name, mean, deviation, "n/a");
+        else
+            System.out.format("%-48s %12.1f %10.1f %12.1f%n", name, mean, deviation, (double) allocated / operations);
+        return mean;
+    }
+
+    private static void run(Operation operation, int times) {
+        long result = 0;
+        for (int i = 0; i < times; ++i)
+            result += operation.run(i);
+        sink += result;
+    }
+
+    /**
+     * @return the HotSpot thread bean if it can count allocated bytes, otherwise null
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+            return null;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported())
+            return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
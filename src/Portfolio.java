@@ -0,0 +1,53 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the randomized heuristic from {@link Main#buildCliquesByAscendingDegree(Graph, Incumbent, Cancellation)}
+ * next to the exact {@link ColoringSearch}, with one {@link Incumbent} between them. The heuristic usually
+ * reaches a near-optimal clique quickly, which the exact search picks up as its bound; the exact search's
+ * cliques feed the heuristic's incumbent in turn. The heuristic restarts until the exact search has proven
+ * its answer (or run out of time), then is stopped.
+ */
+public class Portfolio {
+    private final BitMatrix graph;
+    private final int heuristicThreads;
+
+    public Portfolio(BitMatrix graph) {
+        this(graph, 1);
+    }
+
+    public Portfolio(BitMatrix graph, int heuristicThreads) {
+        if (heuristicThreads < 0)
+            throw new IllegalArgumentException("Number of heuristic threads must not be negative!");
+        this.graph = graph;
+        this.heuristicThreads = heuristicThreads;
+    }
+
+    /**
+     * The exact search uses options.threads() threads on top of the heuristic's, and the time limit and
+     * cancellation apply to both.
+     */
+    public SolveResult solve(SolveOptions options) throws ExecutionException, InterruptedException {
+        Incumbent incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+        Cancellation stop = new Cancellation();
+
+        // Start the heuristic first so it gets going while the exact search reduces the graph
+        ExecutorService heuristics = Executors.newFixedThreadPool(Math.max(1, heuristicThreads));
+        Graph bitSetGraph = new Graph(graph);
+        for (int i = 0; i < heuristicThreads; ++i) {
+            heuristics.submit(() -> {
+                while (!stop.isCancelled())
+                    Main.buildCliquesByAscendingDegree(bitSetGraph, incumbent, stop);
+            });
+        }
+
+        try {
+            return new ColoringSearch(graph).solve(options.copy().incumbent(incumbent));
+        }
+        finally {
+            stop.cancel();
+            heuristics.shutdown();
+        }
+    }
+}
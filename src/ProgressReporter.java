@@ -0,0 +1,52 @@
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints a progress line for a running solve at a fixed interval, from a thread of its own, so the search
+ * threads never touch the console.
+ */
+public class ProgressReporter implements AutoCloseable {
+    private final SearchStats stats;
+    private final Incumbent incumbent;
+    private final PrintStream out;
+    private final ScheduledExecutorService timer;
+    private long lastNodes;
+    private long lastNanos;
+
+    public ProgressReporter(SearchStats stats, Incumbent incumbent, Duration interval, PrintStream out) {
+        if (interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("Progress interval must be positive!");
+        this.stats = stats;
+        this.incumbent = incumbent;
+        this.out = out;
+        lastNanos = System.nanoTime();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::report, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void report() {
+        WorkerStats total = stats.total();
+        long now = System.nanoTime();
+        double rate = (total.nodesExpanded() - lastNodes) / ((now - lastNanos) / 1e9);
+        lastNodes = total.nodesExpanded();
+        lastNanos = now;
+
+        long branches = total.nodesExpanded() + total.prunedByBound();
+        out.format("[Progress %.1f s: best %d, %d nodes (%.0f/s), %.1f%% pruned, depth %d, %d roots, %d splits]%n",
+                stats.getElapsedSeconds(), incumbent.size(), total.nodesExpanded(), rate,
+                branches == 0 ? 0 : 100.0 * total.prunedByBound() / branches, total.maxDepth(),
+                total.rootsFinished(), total.taskSplits());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * Shrinks a graph before exact search. A quick greedy pass finds a clique of size k, and only
+ * a clique of more than k nodes is still interesting. Each of its nodes needs at least k
+ * neighbors, so everything outside the k-core can be deleted, with the deletions cascading.
+ * The reduced graph is renumbered in smallest-last order, and the search should start with k as
+ * its incumbent size.
+ */
+public class Reduction {
+    private final int[] clique;
+    private final int[] kept;
+    private final BitMatrix reduced;
+
+    public Reduction(BitMatrix graph) {
+        int[] cores = new int[graph.nodes()];
+        int[] order = VertexOrdering.degeneracy(graph, cores);
+        BitMatrix ordered = graph.permute(order);
+
+        clique = VertexOrdering.restore(greedyClique(ordered), order);
+        final int BOUND = clique.length;
+
+        int count = 0;
+        for (int node : order)
+            if (cores[node] >= BOUND)
+                ++count;
+
+        // Filtering the smallest-last order keeps the survivors in smallest-last order
+        kept = new int[count];
+        int index = 0;
+        for (int node : order)
+            if (cores[node] >= BOUND)
+                kept[index++] = node;
+
+        reduced = graph.permute(kept);
+    }
+
+    /**
+     * @return the heuristic clique, in original ids
+     */
+    public int[] clique() {
+        return clique;
+    }
+
+    public int lowerBound() {
+        return clique.length;
+    }
+
+    /**
+     * @return the k-core renumbered in smallest-last order; node i is original node kept()[i]
+     */
+    public BitMatrix graph() {
+        return reduced;
+    }
+
+    public int[] kept() {
+        return kept;
+    }
+
+    /**
+     * Maps a clique found in the reduced graph back to original ids. If the search did not beat
+     * the heuristic, the heuristic clique is the answer.
+     */
+    public int[] restore(int[] reducedClique) {
+        if (reducedClique == null || reducedClique.length <= clique.length)
+            return clique;
+
+        return VertexOrdering.restore(reducedClique, kept);
+    }
+
+    /**
+     * Greedy clique from every starting node: keep adding the lowest-numbered remaining candidate,
+     * which in smallest-last order is the one deepest in the core. Each step is a single row
+     * intersection, so this costs far less than one level of exact search.
+     */
+    private static int[] greedyClique(BitMatrix graph) {
+        final int NODES = graph.nodes();
+        final int STRIDE = graph.stride();
+        long[] candidates = new long[STRIDE];
+        long[] clique = new long[STRIDE];
+        long[] best = new long[STRIDE];
+        int bestSize = 0;
+
+        for (int start = 0; start < NODES; ++start) {
+            // The clique cannot outgrow the start's neighborhood
+            if (graph.degree(start) + 1 <= bestSize)
+                continue;
+
+            Arrays.fill(clique, 0);
+            BitMatrix.set(clique, 0, start);
+            graph.copyRow(start, candidates, 0);
+            int size = 1;
+            for (int node = graph.nextSetBit(candidates, 0, 0); node >= 0; node = graph.nextSetBit(candidates, 0, 0)) {
+                BitMatrix.set(clique, 0, node);
+                ++size;
+                graph.intersectRow(node, candidates, 0, candidates, 0);
+            }
+
+            if (size > bestSize) {
+                bestSize = size;
+                System.arraycopy(clique, 0, best, 0, STRIDE);
+            }
+        }
+
+        return graph.setToArray(best, 0);
+    }
+}
@@ -0,0 +1,110 @@
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Statistics for one solve, kept as one {@link WorkerStats} per search thread and only added up when asked for.
+ * Pass one in through {@link SolveOptions#stats(SearchStats)} to watch a solve, or take it from the
+ * {@link SolveResult} afterwards.
+ */
+public class SearchStats implements SearchStatsMXBean {
+    private final List<WorkerStats> workers = new CopyOnWriteArrayList<>();
+    private final long start = System.nanoTime();
+    private ObjectName name;
+
+    /**
+     * @return counters for a new search thread, which only that thread may update
+     */
+    public WorkerStats newWorker() {
+        WorkerStats worker = new WorkerStats();
+        workers.add(worker);
+        return worker;
+    }
+
+    public List<WorkerStats> workers() {
+        return workers;
+    }
+
+    /**
+     * @return sum of every worker's counters at this moment
+     */
+    public WorkerStats total() {
+        WorkerStats total = new WorkerStats();
+        for (WorkerStats worker : workers)
+            total.add(worker);
+        return total;
+    }
+
+    /**
+     * Publishes these statistics on the platform MBean server as FastCliques:type=SearchStats,name=name.
+     */
+    public synchronized void register(String name) throws JMException {
+        this.name = new ObjectName("FastCliques:type=SearchStats,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (name != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            name = null;
+        }
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return total().nodesExpanded();
+    }
+
+    @Override
+    public long getPrunedByBound() {
+        return total().prunedByBound();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return total().maxDepth();
+    }
+
+    @Override
+    public long getIncumbentUpdates() {
+        return total().incumbentUpdates();
+    }
+
+    @Override
+    public long getTaskSplits() {
+        return total().taskSplits();
+    }
+
+    @Override
+    public long getRootsFinished() {
+        return total().rootsFinished();
+    }
+
+    @Override
+    public double getMeanRootMillis() {
+        WorkerStats total = total();
+        return total.rootsFinished() == 0 ? 0 : total.rootNanos() / 1e6 / total.rootsFinished();
+    }
+
+    @Override
+    public double getLongestRootMillis() {
+        return total().longestRootNanos() / 1e6;
+    }
+
+    @Override
+    public long[] getWorkerNodesExpanded() {
+        return workers.stream().mapToLong(WorkerStats::nodesExpanded).toArray();
+    }
+
+    @Override
+    public double[] getWorkerBusySeconds() {
+        return workers.stream().mapToDouble(worker -> worker.rootNanos() / 1e9).toArray();
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Management view of a running search, for jconsole or any other JMX client.
+ */
+public interface SearchStatsMXBean {
+    double getElapsedSeconds();
+
+    long getNodesExpanded();
+
+    long getPrunedByBound();
+
+    int getMaxDepth();
+
+    long getIncumbentUpdates();
+
+    long getTaskSplits();
+
+    long getRootsFinished();
+
+    double getMeanRootMillis();
+
+    double getLongestRootMillis();
+
+    /**
+     * @return nodes expanded by each worker; uneven counts point at load imbalance
+     */
+    long[] getWorkerNodesExpanded();
+
+    /**
+     * @return seconds each worker has spent searching
+     */
+    double[] getWorkerBusySeconds();
+}
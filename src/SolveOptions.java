@@ -0,0 +1,187 @@
+import java.time.Duration;
+
+/**
+ * Limits and callbacks for a solve. Without a time limit or cancellation the solve runs until it has
+ * proven its clique is maximum.
+ */
+public class SolveOptions {
+    private Duration timeLimit;
+    private Cancellation cancellation = new Cancellation();
+    private IncumbentListener listener;
+    private Incumbent incumbent;
+    private SearchStats stats;
+    private Duration progressInterval;
+    private boolean printRoots;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Long seed;
+    private Integer target;
+
+    public SolveOptions timeLimit(Duration timeLimit) {
+        if (timeLimit.isNegative())
+            throw new IllegalArgumentException("Time limit must not be negative!");
+        this.timeLimit = timeLimit;
+        return this;
+    }
+
+    public SolveOptions cancellation(Cancellation cancellation) {
+        this.cancellation = cancellation;
+        return this;
+    }
+
+    public SolveOptions listener(IncumbentListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Shares an incumbent with whatever else is searching the same graph, so each side prunes with the
+     * other's cliques. The incumbent's own listener is used in place of {@link #listener(IncumbentListener)}.
+     */
+    public SolveOptions incumbent(Incumbent incumbent) {
+        this.incumbent = incumbent;
+        return this;
+    }
+
+    /**
+     * Collects the search's counters in stats, so they can be watched while it runs.
+     */
+    public SolveOptions stats(SearchStats stats) {
+        this.stats = stats;
+        return this;
+    }
+
+    /**
+     * Prints a line of search statistics to standard output at this interval while the solve runs.
+     */
+    public SolveOptions progressInterval(Duration progressInterval) {
+        if (progressInterval.isNegative() || progressInterval.isZero())
+            throw new IllegalArgumentException("Progress interval must be positive!");
+        this.progressInterval = progressInterval;
+        return this;
+    }
+
+    /**
+     * Prints a line as each root of the search finishes.
+     */
+    public SolveOptions printRoots(boolean printRoots) {
+        this.printRoots = printRoots;
+        return this;
+    }
+
+    public SolveOptions threads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread!");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Seeds the randomized solvers, so runs with the same seed and thread count make the same choices.
+     */
+    public SolveOptions seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Lets the heuristic solvers stop as soon as they find a clique of this size, e.g. a known optimum.
+     */
+    public SolveOptions target(int target) {
+        if (target < 1)
+            throw new IllegalArgumentException("Target clique size must be positive!");
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * @return the time limit, or null for none
+     */
+    public Duration timeLimit() {
+        return timeLimit;
+    }
+
+    public Cancellation cancellation() {
+        return cancellation;
+    }
+
+    public IncumbentListener listener() {
+        return listener;
+    }
+
+    /**
+     * @return the shared incumbent, or null if the solve should make its own
+     */
+    public Incumbent incumbent() {
+        return incumbent;
+    }
+
+    /**
+     * @return the statistics to fill in, or null if the solve should make its own
+     */
+    public SearchStats stats() {
+        return stats;
+    }
+
+    /**
+     * @return the progress interval, or null for no progress lines
+     */
+    public Duration progressInterval() {
+        return progressInterval;
+    }
+
+    public boolean printRoots() {
+        return printRoots;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * @return the random seed, or null for a different one every run
+     */
+    public Long seed() {
+        return seed;
+    }
+
+    /**
+     * @return the clique size to stop at, or null to keep going
+     */
+    public Integer target() {
+        return target;
+    }
+
+    /**
+     * @return a copy that can be changed without affecting this one
+     */
+    public SolveOptions copy() {
+        SolveOptions copy = new SolveOptions();
+        copy.timeLimit = timeLimit;
+        copy.cancellation = cancellation;
+        copy.listener = listener;
+        copy.incumbent = incumbent;
+        copy.stats = stats;
+        copy.progressInterval = progressInterval;
+        copy.printRoots = printRoots;
+        copy.threads = threads;
+        copy.seed = seed;
+        copy.target = target;
+        return copy;
+    }
+
+    /**
+     * @return the time limit in nanoseconds, or Long.MAX_VALUE for none. Compare it with System.nanoTime() - start,
+     * which stays correct wherever nanoTime's origin lies, rather than with a deadline added to start
+     */
+    public long timeLimitNanos() {
+        if (timeLimit == null)
+            return Long.MAX_VALUE;
+        try {
+            return timeLimit.toNanos();
+        }
+        catch (ArithmeticException e) {
+            // Some 292 years or more is as good as none
+            return Long.MAX_VALUE;
+        }
+    }
+}
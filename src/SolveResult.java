@@ -0,0 +1,61 @@
+/**
+ * What a solve found. If it was stopped by its time limit or cancelled, the clique is the best found
+ * so far and proven is false.
+ */
+public class SolveResult {
+    private final int[] clique;
+    private final boolean proven;
+    private final long searchNodes;
+    private final long elapsedNanos;
+    private final SearchStats stats;
+
+    public SolveResult(int[] clique, boolean proven, long searchNodes, long elapsedNanos) {
+        this(clique, proven, searchNodes, elapsedNanos, null);
+    }
+
+    public SolveResult(int[] clique, boolean proven, long searchNodes, long elapsedNanos, SearchStats stats) {
+        this.clique = clique;
+        this.proven = proven;
+        this.searchNodes = searchNodes;
+        this.elapsedNanos = elapsedNanos;
+        this.stats = stats;
+    }
+
+    /**
+     * @return nodes in the clique, in original ids
+     */
+    public int[] clique() {
+        return clique;
+    }
+
+    /**
+     * @return whether the search finished, so no larger clique exists
+     */
+    public boolean proven() {
+        return proven;
+    }
+
+    /**
+     * @return branch-and-bound nodes expanded across all threads
+     */
+    public long searchNodes() {
+        return searchNodes;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return detailed search statistics, or null for engines that do not keep them
+     */
+    public SearchStats stats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Clique size: %d%s %.3f seconds, %d search nodes", clique.length,
+                proven ? "" : " (not proven)", elapsedNanos / 1000000000.0, searchNodes);
+    }
+}
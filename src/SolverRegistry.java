@@ -0,0 +1,76 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Every clique engine in the project, by name. The older engines in {@link Graph} and {@link GraphWithArrays}
+ * only return a clique, so they are wrapped to block until done; they fill in statistics and offer each root's
+ * clique as it finishes, but ignore the time limit and cancellation. Engines on the BitSet {@link Graph} are
+ * prefixed with "Graph.".
+ */
+public class SolverRegistry {
+    private static final Map<String, MaxCliqueSolver> SOLVERS = new LinkedHashMap<>();
+
+    static {
+        register("findLargestCliqueColoring", (graph, options) -> new ColoringSearch(graph).solve(options));
+        register("findLargestCliqueColoringDeterministic", (graph, options) -> new ColoringSearch(graph, true).solve(options));
+        register("findLargestCliqueForkJoin", (graph, options) -> new ForkJoinSearch(graph).solve(options));
+        register("solvePortfolio", (graph, options) -> new Portfolio(graph).solve(options));
+        register("buildCliquesByIslands", (graph, options) -> new IslandHeuristic(graph).solve(options));
+        register("localSearch", (graph, options) -> new LocalSearch(graph).solve(options));
+        register("localSearchNoPenalties", (graph, options) -> new LocalSearch(graph, 1).solve(options));
+        register("sparseSearch", (graph, options) -> new SparseCliqueSearch(SparseGraph.of(graph)).solve(options));
+        register("findLargestCliqueThreaded", blocking((graph, options) -> new GraphWithArrays(graph).findLargestCliqueThreaded(options)));
+        register("findLargestCliqueStackThreaded", blocking((graph, options) -> new GraphWithArrays(graph).findLargestCliqueStackThreaded(options)));
+        register("newFindLargestCliqueStackThreaded", blocking((graph, options) -> new GraphWithArrays(graph).newFindLargestCliqueStackThreaded(options)));
+        register("Graph.findLargestClique", blocking((graph, options) -> new Graph(graph).findLargestClique(options)));
+        register("Graph.findLargestCliqueStackThreaded", blocking((graph, options) -> new Graph(graph).findLargestCliqueStackThreaded(options)));
+        register("Graph.newFindLargestCliqueStackThreaded", blocking((graph, options) -> new Graph(graph).newFindLargestCliqueStackThreaded(options)));
+        register("buildCliquesByAscendingDegree", SolverRegistry::buildCliquesByAscendingDegree);
+    }
+
+    public static synchronized void register(String name, MaxCliqueSolver solver) {
+        if (SOLVERS.putIfAbsent(name, solver) != null)
+            throw new IllegalArgumentException("Solver " + name + " is already registered!");
+    }
+
+    public static synchronized MaxCliqueSolver get(String name) {
+        MaxCliqueSolver solver = SOLVERS.get(name);
+        if (solver == null)
+            throw new IllegalArgumentException("Unknown solver " + name + "! Known solvers: " + SOLVERS.keySet());
+        return solver;
+    }
+
+    /**
+     * @return solver names in registration order
+     */
+    public static synchronized Set<String> names() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(SOLVERS.keySet()));
+    }
+
+    private interface Blocking {
+        int[] findLargestClique(BitMatrix graph, SolveOptions options) throws ExecutionException, InterruptedException;
+    }
+
+    private static MaxCliqueSolver blocking(Blocking engine) {
+        return (graph, options) -> {
+            Incumbent incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+            SearchStats stats = options.stats() != null ? options.stats() : new SearchStats();
+            int[] clique = engine.findLargestClique(graph, options.copy().incumbent(incumbent).stats(stats));
+            incumbent.offer(clique);
+            return new SolveResult(clique, true, stats.total().nodesExpanded(), incumbent.elapsedNanos(), stats);
+        };
+    }
+
+    /**
+     * One run of the randomized heuristic from {@link Main}. It proves nothing, and cancellation stops it early.
+     */
+    private static SolveResult buildCliquesByAscendingDegree(BitMatrix graph, SolveOptions options) {
+        Incumbent incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+        Main.buildCliquesByAscendingDegree(new Graph(graph), incumbent, options.cancellation());
+        return new SolveResult(incumbent.clique(), false, 0, incumbent.elapsedNanos());
+    }
+}
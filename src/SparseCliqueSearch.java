@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Exact maximum clique search over a {@link SparseGraph}, for graphs far too large for an n x n matrix.
+ * Nodes are renumbered in smallest-last (degeneracy) order, and every clique is searched for from its last node
+ * in that order, among that node's neighbors earlier in it: these are the neighbors still left when the
+ * node was peeled off, so there are at most degeneracy-many of them, however large its degree. Each such
+ * neighborhood is copied into a small {@link BitMatrix} and searched with the coloring bound of
+ * {@link ColoringSearch}.
+ * <p>
+ * Roots are taken densest core first by any number of threads, all pruning against one shared incumbent.
+ * Core numbers only fall along the order, so once a root's core number plus one cannot beat the incumbent,
+ * neither can any root after it and the search is over; within a root, neighbors whose core number is below
+ * the incumbent size are left out of the subproblem before it is built.
+ */
+public class SparseCliqueSearch {
+    private final int[] order;
+    // The graph renumbered by position in order, and each position's core number and count of earlier neighbors
+    private final SparseGraph ordered;
+    private final int[] cores;
+    private final int[] earlierCounts;
+    private final int degeneracy;
+
+    /**
+     * Copies graph in degeneracy order; the search does not keep a reference to graph itself.
+     */
+    public SparseCliqueSearch(SparseGraph graph) {
+        final int NODES = graph.nodes();
+        int[] nodeCores = new int[NODES];
+        order = VertexOrdering.degeneracy(graph, nodeCores);
+        ordered = graph.permute(order);
+
+        cores = new int[NODES];
+        earlierCounts = new int[NODES];
+        int largestCore = 0;
+        for (int i = 0; i < NODES; ++i) {
+            cores[i] = nodeCores[order[i]];
+            largestCore = Math.max(largestCore, cores[i]);
+            // Neighbor lists are sorted, so the earlier neighbors are a prefix
+            int start = ordered.start(i);
+            int index = Arrays.binarySearch(ordered.block(i), start, start + ordered.degree(i), i);
+            earlierCounts[i] = -index - 1 - start;
+        }
+        degeneracy = largestCore;
+    }
+
+    /**
+     * Solves each DIMACS file named on the command line.
+     */
+    public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
+        for (String name : args) {
+            SparseGraph graph = DimacsLoader.loadSparse(Path.of(name));
+            SolveResult result = new SparseCliqueSearch(graph).solve(new SolveOptions());
+            System.out.println(name + ": " + graph.nodes() + " nodes, " + graph.edges() + " edges. " + result);
+        }
+    }
+
+    /**
+     * @return largest core number, which bounds every subproblem's size
+     */
+    public int degeneracy() {
+        return degeneracy;
+    }
+
+    /**
+     * Searches until the clique is proven maximum, the time limit passes or the solve is cancelled.
+     */
+    public SolveResult solve(SolveOptions options) throws ExecutionException, InterruptedException {
+        final int THREADS = options.threads();
+        Run run = new Run(options);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; ++i)
+            workers.add(new Worker(run));
+
+        ProgressReporter reporter = options.progressInterval() == null ? null
+                : new ProgressReporter(run.stats, run.incumbent, options.progressInterval(), System.out);
+        List<Future<int[]>> futures;
+        try {
+            futures = executor.invokeAll(workers);
+        }
+        finally {
+            executor.shutdown();
+            if (reporter != null)
+                reporter.close();
+        }
+
+        long searchNodes = 0;
+        int[] clique = new int[0];
+        for (int i = 0; i < THREADS; ++i) {
+            int[] found = futures.get(i).get();
+            searchNodes += workers.get(i).stats.nodesExpanded;
+            if (found != null && found.length > clique.length)
+                clique = found;
+        }
+
+        if (run.stopped)
+            return new SolveResult(run.incumbent.clique(), false, searchNodes, run.incumbent.elapsedNanos(), run.stats);
+
+        // A shared incumbent may hold a larger clique, which the search has now proven maximum
+        if (run.incumbent.size() > clique.length)
+            clique = run.incumbent.clique();
+        return new SolveResult(clique, true, searchNodes, run.incumbent.elapsedNanos(), run.stats);
+    }
+
+    /**
+     * State shared by the workers of one solve.
+     */
+    private class Run {
+        final LongAccumulator largest;
+        final AtomicInteger nextRoot = new AtomicInteger();
+        final Incumbent incumbent;
+        final SearchStats stats;
+        final Cancellation cancellation;
+        final long start = System.nanoTime();
+        final long timeLimitNanos;
+        volatile boolean stopped;
+
+        Run(SolveOptions options) {
+            incumbent = options.incumbent() != null ? options.incumbent() : new Incumbent(options.listener());
+            stats = options.stats() != null ? options.stats() : new SearchStats();
+            cancellation = options.cancellation();
+            timeLimitNanos = options.timeLimitNanos();
+            largest = new LongAccumulator(Long::max, incumbent.size());
+        }
+
+        boolean shouldStop() {
+            largest.accumulate(incumbent.size());
+            if (!stopped && (cancellation.isCancelled() || System.nanoTime() - start >= timeLimitNanos))
+                stopped = true;
+            return stopped;
+        }
+    }
+
+    /**
+     * Takes roots from a shared counter until none are worth searching. Buffers are sized for the
+     * largest possible subproblem when the worker is created; only each subproblem's matrix is allocated
+     * during the search.
+     */
+    private class Worker implements Callable<int[]> {
+        // Look at the clock, cancellation and shared incumbent once per this many search nodes
+        private static final int CHECK_INTERVAL = 1 << 10;
+
+        private final Run run;
+        private final WorkerStats stats;
+        private final LongAccumulator largest;
+        // Position of each node of the current subproblem
+        private final int[] members;
+        private BitMatrix local;
+        private int root;
+        private final long[] clique;
+        private final long[] candidates;
+        private final long[] uncolored;
+        private final long[] available;
+        private final int[][] orders;
+        private final int[][] colorings;
+        private int[] largestClique;
+        private boolean stopped;
+
+        Worker(Run run) {
+            this.run = run;
+            stats = run.stats.newWorker();
+            largest = run.largest;
+            final int STRIDE = BitMatrix.wordsFor(degeneracy);
+            members = new int[degeneracy];
+            clique = new long[STRIDE];
+            candidates = new long[(degeneracy + 1) * STRIDE];
+            uncolored = new long[STRIDE];
+            available = new long[STRIDE];
+            orders = new int[degeneracy + 1][];
+            colorings = new int[degeneracy + 1][];
+        }
+
+        @Override
+        public int[] call() {
+            final int NODES = ordered.nodes();
+            for (int i = run.nextRoot.getAndIncrement(); i < NODES && !run.shouldStop(); i = run.nextRoot.getAndIncrement()) {
+                // Core numbers never rise along the order, so no later root can do better either
+                if (cores[i] + 1 <= largest.get())
+                    break;
+
+                long rootStart = System.nanoTime();
+                root = i;
+                int size = gather(i);
+                if (size + 1 > largest.get()) {
+                    build(size);
+                    if (1 > largest.get())
+                        found(1);
+                    if (size > 0) {
+                        Arrays.fill(candidates, 0, local.stride(), 0);
+                        for (int j = 0; j < size; ++j)
+                            BitMatrix.set(candidates, 0, j);
+                        expand(0, 1);
+                    }
+                }
+                else
+                    ++stats.prunedByBound;
+
+                if (stopped)
+                    break;
+                stats.rootFinished(System.nanoTime() - rootStart);
+            }
+
+            return largestClique;
+        }
+
+        /**
+         * Collects the earlier neighbors of root that could still be in a clique larger than the incumbent.
+         * @return how many there are
+         */
+        private int gather(int root) {
+            int bound = (int) largest.get();
+            int[] block = ordered.block(root);
+            int start = ordered.start(root);
+            int size = 0;
+            for (int j = start; j < start + earlierCounts[root]; ++j)
+                if (cores[block[j]] >= bound)
+                    members[size++] = block[j];
+            return size;
+        }
+
+        /**
+         * Copies the subgraph induced by the members into a matrix indexed by member. Each edge is found at its
+         * later end by merging that end's sorted earlier neighbors with the sorted members before it, so this
+         * costs at most size * degeneracy steps.
+         */
+        private void build(int size) {
+            local = new BitMatrix(size);
+            for (int j = 1; j < size; ++j) {
+                int[] block = ordered.block(members[j]);
+                int start = ordered.start(members[j]);
+                int end = start + earlierCounts[members[j]];
+                for (int k = 0; k < j && start < end; ) {
+                    if (members[k] < block[start])
+                        ++k;
+                    else if (members[k] > block[start])
+                        ++start;
+                    else {
+                        local.addEdge(j, k);
+                        ++k;
+                        ++start;
+                    }
+                }
+            }
+        }
+
+        private void expand(int depth, int cardinality) {
+            if ((++stats.nodesExpanded & (CHECK_INTERVAL - 1)) == 0 && run.shouldStop()) {
+                stopped = true;
+                return;
+            }
+
+            final int STRIDE = local.stride();
+            final int OFFSET = depth * STRIDE;
+            int count = local.popcount(candidates, OFFSET);
+            stats.depth(depth);
+            if (orders[depth] == null) {
+                orders[depth] = new int[degeneracy];
+                colorings[depth] = new int[degeneracy];
+            }
+            int[] order = orders[depth];
+            int[] colors = colorings[depth];
+            ColoringSearch.colorSort(local, candidates, OFFSET, uncolored, available, order, colors);
+
+            for (int i = count - 1; i >= 0; --i) {
+                if (cardinality + colors[i] <= largest.get()) {
+                    stats.prunedByBound += i + 1;
+                    return;
+                }
+
+                int node = order[i];
+                BitMatrix.set(clique, 0, node);
+                if (cardinality + 1 > largest.get())
+                    found(cardinality + 1);
+
+                local.intersectRow(node, candidates, OFFSET, candidates, OFFSET + STRIDE);
+                if (!local.isEmpty(candidates, OFFSET + STRIDE))
+                    expand(depth + 1, cardinality + 1);
+
+                BitMatrix.clear(clique, 0, node);
+                BitMatrix.clear(candidates, OFFSET, node);
+                if (stopped)
+                    return;
+            }
+        }
+
+        /**
+         * Records the root plus the subproblem nodes in clique, cardinality nodes in all, in original ids.
+         */
+        private void found(int cardinality) {
+            int[] nodes = new int[cardinality];
+            nodes[0] = order[root];
+            int index = 1;
+            for (int node = local.nextSetBit(clique, 0, 0); node >= 0; node = local.nextSetBit(clique, 0, node + 1))
+                nodes[index++] = order[members[node]];
+            Arrays.sort(nodes);
+
+            largestClique = nodes;
+            largest.accumulate(cardinality);
+            if (cardinality > run.incumbent.size() && run.incumbent.offer(nodes))
+                ++stats.incumbentUpdates;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+
+/**
+ * Undirected graph in compressed sparse row form: the neighbors of each node are a sorted run of ints,
+ * without duplicates or self loops. Every edge is stored once from each end, so the graph takes about
+ * 4 * 2m bytes plus 12 per node, where a {@link BitMatrix} takes n^2 / 8, which is what lets graphs with
+ * millions of nodes be loaded at all. The runs are packed into one or more int[] blocks, so the edge
+ * count is not limited by the size of a Java array; a run never crosses from one block into the next.
+ * Build one with a {@link SparseGraphBuilder}.
+ */
+public class SparseGraph {
+    private final int nodes;
+    private final long edges;
+    private final int[] degrees;
+    // Block in the high 32 bits, start within it in the low 32
+    private final long[] starts;
+    private final int[][] blocks;
+
+    SparseGraph(int nodes, long edges, int[] degrees, long[] starts, int[][] blocks) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.degrees = degrees;
+        this.starts = starts;
+        this.blocks = blocks;
+    }
+
+    public static SparseGraph of(BitMatrix graph) {
+        final int NODES = graph.nodes();
+        SparseGraphBuilder builder = new SparseGraphBuilder(NODES);
+        forEachEdge(graph, builder::count);
+        builder.allocate();
+        forEachEdge(graph, builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Builds a copy of this graph in which node i is original node order[i].
+     * If order lists only some of the nodes, the result is the subgraph they induce.
+     */
+    public SparseGraph permute(int[] order) {
+        int[] position = new int[nodes];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < order.length; ++i)
+            position[order[i]] = i;
+
+        SparseGraphBuilder builder = new SparseGraphBuilder(order.length);
+        for (int i = 0; i < order.length; ++i)
+            forEachLater(order[i], i, position, builder::count);
+        builder.allocate();
+        for (int i = 0; i < order.length; ++i)
+            forEachLater(order[i], i, position, builder::add);
+        return builder.build();
+    }
+
+    /**
+     * @return the block holding node's neighbors, which run from {@link #start(int)} for {@link #degree(int)} entries
+     */
+    int[] block(int node) {
+        return blocks[(int) (starts[node] >>> 32)];
+    }
+
+    int start(int node) {
+        return (int) starts[node];
+    }
+
+    public int nodes() {
+        return nodes;
+    }
+
+    public long edges() {
+        return edges;
+    }
+
+    public int degree(int node) {
+        return degrees[node];
+    }
+
+    public int maxDegree() {
+        int max = 0;
+        for (int degree : degrees)
+            max = Math.max(max, degree);
+
+        return max;
+    }
+
+    /**
+     * @return the neighbor at index within node's sorted neighbor list
+     */
+    public int neighbor(int node, int index) {
+        return block(node)[start(node) + index];
+    }
+
+    public boolean hasEdge(int from, int to) {
+        int start = start(from);
+        return Arrays.binarySearch(block(from), start, start + degrees[from], to) >= 0;
+    }
+
+    public boolean isClique(int[] nodes) {
+        for (int i = 0; i < nodes.length - 1; ++i)
+            for (int j = i + 1; j < nodes.length; ++j)
+                if (!hasEdge(nodes[i], nodes[j]))
+                    return false;
+
+        return true;
+    }
+
+    private interface EdgeConsumer {
+        void edge(int from, int to);
+    }
+
+    /**
+     * Passes every edge of graph to consumer once, from its lower end.
+     */
+    private static void forEachEdge(BitMatrix graph, EdgeConsumer consumer) {
+        final int STRIDE = graph.stride();
+        long[] words = graph.words();
+        for (int row = 0; row < graph.nodes(); ++row) {
+            int base = row * STRIDE;
+            for (int i = 0; i < STRIDE; ++i)
+                for (long word = words[base + i]; word != 0; word &= word - 1) {
+                    int neighbor = (i << 6) + Long.numberOfTrailingZeros(word);
+                    if (neighbor > row)
+                        consumer.edge(row, neighbor);
+                }
+        }
+    }
+
+    /**
+     * Passes each edge from node to a neighbor placed after it to consumer, renumbered by position.
+     */
+    private void forEachLater(int node, int at, int[] position, EdgeConsumer consumer) {
+        int[] block = block(node);
+        int start = start(node);
+        for (int j = start; j < start + degrees[node]; ++j) {
+            int other = position[block[j]];
+            if (other > at)
+                consumer.edge(at, other);
+        }
+    }
+}
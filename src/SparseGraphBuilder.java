@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a {@link SparseGraph} from a stream of edges read twice, so no edge list or matrix is ever held
+ * besides the graph itself. The first pass calls {@link #count(int, int)} for every edge, which only
+ * counts how many times each node is mentioned; {@link #allocate()} then lays out one slot per mention,
+ * and the second pass calls {@link #add(int, int)} with the same edges to fill the slots in place.
+ * {@link #build()} sorts each neighbor list and drops repeats, so edges may be listed from either end or
+ * both, and more than once; self loops are ignored.
+ * <p>
+ * Memory is one slot per edge end plus a few words per node. Neighbor lists are packed into blocks of
+ * at most 2^30 slots, whatever the edge count, since one Java array cannot hold more than 2^31.
+ * A builder is fed from one thread: every slot write misses cache, and an atomic cursor in front of each
+ * would keep those misses from overlapping, which made the second pass ten times slower. Parse in
+ * parallel and hand the edges over in batches instead, as {@link DimacsLoader#loadSparse} does.
+ */
+public class SparseGraphBuilder {
+    static final int BLOCK_BITS = 30;
+
+    private final int nodes;
+    private final int blockBits;
+    // Mentions counted in the first pass
+    private int[] counts;
+    // Where each node's slots begin, and in the second pass the next free one, as block << 32 | index
+    private long[] starts;
+    private long[] cursors;
+    private int[][] blocks;
+
+    public SparseGraphBuilder(int nodes) {
+        this(nodes, BLOCK_BITS);
+    }
+
+    /**
+     * @param blockBits log2 of the block size, smaller only for checking the layout, as {@link #main} does
+     */
+    SparseGraphBuilder(int nodes, int blockBits) {
+        if (nodes < 0)
+            throw new IllegalArgumentException("Number of nodes must not be negative!");
+        this.nodes = nodes;
+        this.blockBits = blockBits;
+        counts = new int[nodes];
+    }
+
+    /**
+     * Checks the block layout: builds each graph with blocks of 8 slots, so lists are spread over many blocks
+     * and every list longer than 8 gets one of its own, feeding every edge from both ends plus a self loop per
+     * node, then reads every edge back against the matrix.
+     * <p>
+     * Usage: SparseGraphBuilder [graph ...] with graphs from data/; defaults to hamming6-4.clq and c-fat200-1.clq.
+     */
+    public static void main(String[] args) throws IOException {
+        String[] graphNames = args.length > 0 ? args : new String[] {"hamming6-4.clq", "c-fat200-1.clq"};
+        for (String graphName : graphNames) {
+            BitMatrix matrix = GraphCache.load(Path.of("data", graphName));
+            final int NODES = matrix.nodes();
+            SparseGraphBuilder builder = new SparseGraphBuilder(NODES, 3);
+            for (int pass = 0; pass < 2; ++pass) {
+                for (int i = 0; i < NODES; ++i)
+                    for (int j = 0; j < NODES; ++j)
+                        if (i == j || matrix.hasEdge(i, j)) {
+                            if (pass == 0)
+                                builder.count(i, j);
+                            else
+                                builder.add(i, j);
+                        }
+                if (pass == 0)
+                    builder.allocate();
+            }
+            SparseGraph graph = builder.build();
+
+            if (graph.nodes() != NODES || graph.edges() != matrix.edges())
+                throw new IllegalStateException(graphName + ": read back " + graph.nodes() + " nodes and " + graph.edges() + " edges!");
+            for (int i = 0; i < NODES; ++i) {
+                if (graph.degree(i) != matrix.degree(i))
+                    throw new IllegalStateException(graphName + ": node " + i + " has degree " + graph.degree(i) + " instead of " + matrix.degree(i) + "!");
+                for (int k = 0; k < graph.degree(i); ++k) {
+                    int neighbor = graph.neighbor(i, k);
+                    if (!matrix.hasEdge(i, neighbor) || k > 0 && neighbor <= graph.neighbor(i, k - 1))
+                        throw new IllegalStateException(graphName + ": node " + i + " lists neighbor " + neighbor + " at " + k + "!");
+                }
+                for (int j = 0; j < NODES; ++j)
+                    if (graph.hasEdge(i, j) != matrix.hasEdge(i, j))
+                        throw new IllegalStateException(graphName + ": edge " + i + "-" + j + " reads back wrong!");
+            }
+            System.out.println(graphName + ": " + NODES + " nodes, " + graph.edges() + " edges read back from blocks of 8");
+        }
+    }
+
+    /**
+     * First pass: notes one edge.
+     */
+    public void count(int from, int to) {
+        check(from, to);
+        if (blocks != null)
+            throw new IllegalStateException("Edges cannot be counted once slots are allocated!");
+        if (from != to) {
+            ++counts[from];
+            ++counts[to];
+        }
+    }
+
+    /**
+     * Ends the first pass, laying out each node's slots so that no list crosses a block boundary.
+     */
+    public void allocate() {
+        if (blocks != null)
+            throw new IllegalStateException("Slots are already allocated!");
+
+        final long BLOCK_SIZE = 1L << blockBits;
+        starts = new long[nodes];
+        long[] sizes = new long[1];
+        int block = 0;
+        long used = 0;
+        for (int i = 0; i < nodes; ++i) {
+            int capacity = counts[i];
+            // A list larger than a block gets a block of its own
+            if (used > 0 && used + capacity > Math.max(BLOCK_SIZE, capacity)) {
+                if (++block == sizes.length)
+                    sizes = Arrays.copyOf(sizes, 2 * sizes.length);
+                used = 0;
+            }
+            starts[i] = (long) block << 32 | used;
+            used += capacity;
+            sizes[block] = used;
+        }
+
+        blocks = new int[block + 1][];
+        for (int i = 0; i <= block; ++i)
+            blocks[i] = new int[(int) sizes[i]];
+        cursors = starts.clone();
+        counts = null;
+    }
+
+    /**
+     * Second pass: stores one edge, which must be one the first pass counted.
+     */
+    public void add(int from, int to) {
+        check(from, to);
+        if (blocks == null)
+            throw new IllegalStateException("Slots must be allocated before edges are added!");
+        if (from != to) {
+            put(from, to);
+            put(to, from);
+        }
+    }
+
+    /**
+     * Ends the second pass. Repeats leave unused slots at the end of their lists rather than being
+     * squeezed out, which would take a second copy of the graph.
+     */
+    public SparseGraph build() {
+        if (blocks == null)
+            allocate();
+
+        int[] degrees = new int[nodes];
+        IntStream.range(0, nodes).parallel().forEach(node -> {
+            int[] block = blocks[(int) (starts[node] >>> 32)];
+            int start = (int) starts[node];
+            int end = end(node);
+            if ((int) cursors[node] != end)
+                throw new IllegalArgumentException("Node " + node + " was mentioned by different edges in the two passes!");
+
+            Arrays.sort(block, start, end);
+            int last = start;
+            for (int i = start; i < end; ++i)
+                if (last == start || block[i] != block[last - 1])
+                    block[last++] = block[i];
+            degrees[node] = last - start;
+        });
+
+        long ends = 0;
+        for (int degree : degrees)
+            ends += degree;
+        return new SparseGraph(nodes, ends / 2, degrees, starts, blocks);
+    }
+
+    /**
+     * Only touches the node's cursor and its slot; a node given more edges than it was counted for
+     * spills into the next node's slots, which build() then reports, or fails here at the end of its block.
+     */
+    private void put(int node, int neighbor) {
+        long slot = cursors[node]++;
+        blocks[(int) (slot >>> 32)][(int) slot] = neighbor;
+    }
+
+    /**
+     * @return the end of node's slots, which is where the next node's begin unless that is in another block
+     */
+    private int end(int node) {
+        if (node + 1 < nodes && starts[node + 1] >>> 32 == starts[node] >>> 32)
+            return (int) starts[node + 1];
+        return blocks[(int) (starts[node] >>> 32)].length;
+    }
+
+    private void check(int from, int to) {
+        if (from < 0 || from >= nodes || to < 0 || to >= nodes)
+            throw new IllegalArgumentException("Edge " + from + "-" + to + " is out of range for " + nodes + " nodes!");
+    }
+}
@@ -0,0 +1,267 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Orderings used to renumber a graph before exact search, so that the search tree and the
+ * balance of work between roots depend on the graph rather than on how the input file happened
+ * to number its nodes, and the centrality orderings the heuristic seeds its cliques from.
+ * <p>
+ * The centrality scores come from repeated products of the adjacency matrix with a vector, one
+ * row at a time straight from the packed rows, split across cores by row. They take two vectors
+ * of extra memory, where raising the matrix to a power took n^2 doubles and n^3 time per product.
+ */
+public class VertexOrdering {
+    /**
+     * Smallest-last (degeneracy) order: repeatedly removes a node of minimum remaining degree and
+     * numbers nodes from the back as they are removed, so the densest core ends up at the front and
+     * the sparse periphery, whose roots finish fastest, at the back. Every node has at most degeneracy-many neighbors before it in the order. Ties are broken by
+     * original index, which keeps the order deterministic. Runs in O(n * words per row + m) using
+     * the bucket method of Batagelj and Zaversnik.
+     * @return order[i] is the original node placed at position i
+     */
+    public static int[] degeneracy(BitMatrix graph) {
+        return degeneracy(graph, new int[graph.nodes()]);
+    }
+
+    /**
+     * Same as {@link #degeneracy(BitMatrix)}, also storing each node's core number: the largest k
+     * such that the node survives in the k-core, where every node has degree at least k.
+     */
+    public static int[] degeneracy(BitMatrix graph, int[] cores) {
+        final int NODES = graph.nodes();
+        int[] degrees = new int[NODES];
+        int maxDegree = 0;
+        for (int i = 0; i < NODES; ++i) {
+            degrees[i] = graph.degree(i);
+            maxDegree = Math.max(maxDegree, degrees[i]);
+        }
+
+        // Nodes sorted by current degree, with start[d] the first position holding degree d
+        int[] start = new int[maxDegree + 2];
+        for (int degree : degrees)
+            ++start[degree + 1];
+        for (int d = 1; d <= maxDegree + 1; ++d)
+            start[d] += start[d - 1];
+
+        // Removal order; reversed at the end
+        int[] order = new int[NODES];
+        int[] position = new int[NODES];
+        int[] next = Arrays.copyOf(start, start.length);
+        for (int i = 0; i < NODES; ++i) {
+            position[i] = next[degrees[i]]++;
+            order[position[i]] = i;
+        }
+
+        long[] row = new long[graph.stride()];
+        for (int i = 0; i < NODES; ++i) {
+            int node = order[i];
+            graph.copyRow(node, row, 0);
+            for (int neighbor = graph.nextSetBit(row, 0, 0); neighbor >= 0; neighbor = graph.nextSetBit(row, 0, neighbor + 1)) {
+                int degree = degrees[neighbor];
+                if (degree > degrees[node]) {
+                    // Swap neighbor to the front of its bucket, then shrink the bucket past it
+                    int first = start[degree];
+                    int other = order[first];
+                    if (other != neighbor) {
+                        order[position[neighbor]] = other;
+                        position[other] = position[neighbor];
+                        order[first] = neighbor;
+                        position[neighbor] = first;
+                    }
+                    ++start[degree];
+                    --degrees[neighbor];
+                }
+            }
+        }
+
+        // Once a node is removed its degree stops changing, which leaves the core numbers behind
+        System.arraycopy(degrees, 0, cores, 0, NODES);
+
+        for (int i = 0, j = NODES - 1; i < j; ++i, --j) {
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        return order;
+    }
+
+    /**
+     * Same as {@link #degeneracy(BitMatrix, int[])} for a {@link SparseGraph}, in O(n + m).
+     */
+    public static int[] degeneracy(SparseGraph graph, int[] cores) {
+        final int NODES = graph.nodes();
+        int[] degrees = new int[NODES];
+        int maxDegree = 0;
+        for (int i = 0; i < NODES; ++i) {
+            degrees[i] = graph.degree(i);
+            maxDegree = Math.max(maxDegree, degrees[i]);
+        }
+
+        int[] start = new int[maxDegree + 2];
+        for (int degree : degrees)
+            ++start[degree + 1];
+        for (int d = 1; d <= maxDegree + 1; ++d)
+            start[d] += start[d - 1];
+
+        int[] order = new int[NODES];
+        int[] position = new int[NODES];
+        int[] next = Arrays.copyOf(start, start.length);
+        for (int i = 0; i < NODES; ++i) {
+            position[i] = next[degrees[i]]++;
+            order[position[i]] = i;
+        }
+
+        for (int i = 0; i < NODES; ++i) {
+            int node = order[i];
+            int[] block = graph.block(node);
+            int from = graph.start(node);
+            for (int j = from; j < from + graph.degree(node); ++j) {
+                int neighbor = block[j];
+                int degree = degrees[neighbor];
+                if (degree > degrees[node]) {
+                    int first = start[degree];
+                    int other = order[first];
+                    if (other != neighbor) {
+                        order[position[neighbor]] = other;
+                        position[other] = position[neighbor];
+                        order[first] = neighbor;
+                        position[neighbor] = first;
+                    }
+                    ++start[degree];
+                    --degrees[neighbor];
+                }
+            }
+        }
+
+        System.arraycopy(degrees, 0, cores, 0, NODES);
+
+        for (int i = 0, j = NODES - 1; i < j; ++i, --j) {
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        return order;
+    }
+
+    /**
+     * Nodes in ascending order of the number of walks of length round(ln n) that start at them,
+     * the same ordering as {@link Graph#getNodesSortedByWalkSize()}. Ties keep index order.
+     */
+    public static int[] byWalkCount(BitMatrix graph) {
+        int length = (int) Math.max(1, Math.round(Math.log(graph.nodes())));
+        return ascending(walkCounts(graph, length));
+    }
+
+    /**
+     * Nodes in ascending order of the smoothed degree from {@link #densities(BitMatrix)}, the same
+     * ordering as {@link Graph#getNodesSortedByDensity()}. Ties keep index order.
+     */
+    public static int[] byDensity(BitMatrix graph) {
+        return ascending(densities(graph));
+    }
+
+    /**
+     * Number of walks of the given length starting at each node, the row sums of A^length, computed
+     * as A^length times the all-ones vector. Counts past 2^900 are scaled down by a power of two, which
+     * is exact, so long walks stay in range without changing their order or ties.
+     */
+    public static double[] walkCounts(BitMatrix graph, int length) {
+        if (length < 1)
+            throw new IllegalArgumentException("Walk length must be positive!");
+
+        double[] walks = new double[graph.nodes()];
+        double[] next = new double[graph.nodes()];
+        Arrays.fill(walks, 1);
+        for (int step = 0; step < length; ++step) {
+            multiply(graph, walks, next);
+            double largest = 0;
+            for (double value : next)
+                largest = Math.max(largest, value);
+            if (largest > 0 && Math.getExponent(largest) > 900)
+                for (int i = 0; i < next.length; ++i)
+                    next[i] = Math.scalb(next[i], -900);
+
+            double[] temp = walks;
+            walks = next;
+            next = temp;
+        }
+
+        return walks;
+    }
+
+    /**
+     * Degree smoothed over ceil(ln n) rounds, in each of which a node's score grows by half the
+     * mean score of its neighbors.
+     */
+    public static double[] densities(BitMatrix graph) {
+        final int NODES = graph.nodes();
+        double[] density = new double[NODES];
+        double[] next = new double[NODES];
+        for (int i = 0; i < NODES; ++i)
+            density[i] = graph.degree(i);
+
+        for (int iteration = 0; iteration < Math.log(NODES); ++iteration) {
+            multiply(graph, density, next);
+            double[] current = density;
+            double[] sums = next;
+            IntStream.range(0, NODES).parallel().forEach(i -> {
+                int degree = graph.degree(i);
+                // An isolated node has no neighbors to average over
+                sums[i] = degree == 0 ? current[i] : sums[i] / 2 / degree + current[i];
+            });
+
+            density = sums;
+            next = current;
+        }
+
+        return density;
+    }
+
+    /**
+     * Stores A times vector into result, one row per task.
+     */
+    private static void multiply(BitMatrix graph, double[] vector, double[] result) {
+        final int STRIDE = graph.stride();
+        long[] words = graph.words();
+        IntStream.range(0, graph.nodes()).parallel().forEach(row -> {
+            double sum = 0;
+            int base = row * STRIDE;
+            for (int i = 0; i < STRIDE; ++i)
+                for (long word = words[base + i]; word != 0; word &= word - 1)
+                    sum += vector[(i << 6) + Long.numberOfTrailingZeros(word)];
+            result[row] = sum;
+        });
+    }
+
+    /**
+     * @return nodes sorted by ascending score, ties in index order
+     */
+    private static int[] ascending(double[] scores) {
+        Integer[] nodes = new Integer[scores.length];
+        for (int i = 0; i < nodes.length; ++i)
+            nodes[i] = i;
+
+        Arrays.sort(nodes, Comparator.comparingDouble(node -> scores[node]));
+
+        int[] sorted = new int[nodes.length];
+        for (int i = 0; i < sorted.length; ++i)
+            sorted[i] = nodes[i];
+
+        return sorted;
+    }
+
+    /**
+     * Maps a clique found in a renumbered graph back to the original node ids, in ascending order.
+     */
+    public static int[] restore(int[] clique, int[] order) {
+        int[] original = new int[clique.length];
+        for (int i = 0; i < clique.length; ++i)
+            original[i] = order[clique[i]];
+
+        Arrays.sort(original);
+        return original;
+    }
+}
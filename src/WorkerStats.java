@@ -0,0 +1,88 @@
+/**
+ * Counters for one search thread. Only the owning thread writes them, with plain increments, so updating
+ * costs nothing beyond the add; other threads merge them through {@link SearchStats} and may see values
+ * that lag slightly behind.
+ */
+public class WorkerStats {
+    long nodesExpanded;
+    long prunedByBound;
+    int maxDepth;
+    long incumbentUpdates;
+    long taskSplits;
+    long rootsFinished;
+    long rootNanos;
+    long longestRootNanos;
+
+    /**
+     * @return search nodes whose candidates were colored and branched on, or for the heuristics, moves made
+     */
+    public long nodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * @return branches skipped because the coloring bound could not beat the incumbent
+     */
+    public long prunedByBound() {
+        return prunedByBound;
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return times this thread raised the shared incumbent
+     */
+    public long incumbentUpdates() {
+        return incumbentUpdates;
+    }
+
+    /**
+     * @return subtrees this thread handed to others
+     */
+    public long taskSplits() {
+        return taskSplits;
+    }
+
+    /**
+     * @return roots finished, or for the ForkJoin search, tasks finished
+     */
+    public long rootsFinished() {
+        return rootsFinished;
+    }
+
+    /**
+     * @return time spent searching below roots, which is this thread's busy time
+     */
+    public long rootNanos() {
+        return rootNanos;
+    }
+
+    public long longestRootNanos() {
+        return longestRootNanos;
+    }
+
+    void depth(int depth) {
+        if (depth > maxDepth)
+            maxDepth = depth;
+    }
+
+    void rootFinished(long nanos) {
+        ++rootsFinished;
+        rootNanos += nanos;
+        if (nanos > longestRootNanos)
+            longestRootNanos = nanos;
+    }
+
+    void add(WorkerStats other) {
+        nodesExpanded += other.nodesExpanded;
+        prunedByBound += other.prunedByBound;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        incumbentUpdates += other.incumbentUpdates;
+        taskSplits += other.taskSplits;
+        rootsFinished += other.rootsFinished;
+        rootNanos += other.rootNanos;
+        longestRootNanos = Math.max(longestRootNanos, other.longestRootNanos);
+    }
+}